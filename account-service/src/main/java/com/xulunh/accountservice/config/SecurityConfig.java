@@ -4,6 +4,7 @@ import com.xulunh.accountservice.security.JwtAuthFilter;
 import com.xulunh.accountservice.security.JwtTokenService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -18,7 +19,9 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .sessionManagement(sessionManagement -> sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/v1/accounts/register","/api/v1/auth/**","/actuator/health","/swagger-ui/**","/v3/api-docs/**").permitAll()
+                        .requestMatchers("/api/v1/accounts/register","/api/v1/auth/**","/error","/actuator/health","/actuator/prometheus","/swagger-ui/**","/v3/api-docs/**").permitAll()
+                        // bulk import writes arbitrary accounts and password hashes, so it is for operators only
+                        .requestMatchers(HttpMethod.POST, "/api/v1/accounts/import").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(new JwtAuthFilter(tokenService), UsernamePasswordAuthenticationFilter.class);
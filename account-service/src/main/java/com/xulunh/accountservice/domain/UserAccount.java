@@ -12,7 +12,8 @@ import java.time.Instant;
 @AllArgsConstructor
 @Builder
 @Table(name="user_accounts",indexes = {
-        @Index(name="ux_user_accounts_email",columnList = "email", unique = true)
+        @Index(name="ux_user_accounts_email",columnList = "email", unique = true),
+        @Index(name="ux_user_accounts_username",columnList = "username", unique = true)
 })
 public class UserAccount {
     @Id
@@ -0,0 +1,8 @@
+package com.xulunh.accountservice.dto;
+
+public record AccountImportResult(
+        int received,
+        int inserted,
+        int skipped, // email or username already present
+        int rejected // failed validation
+) {}
@@ -0,0 +1,27 @@
+package com.xulunh.accountservice.events;
+
+import com.xulunh.accountservice.service.AccountCache;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Only active when account.cache.invalidation.topic is set (multi-replica deployments)
+@Component
+@ConditionalOnExpression("!'${account.cache.invalidation.topic:}'.isBlank()")
+public class AccountCacheInvalidationListener {
+    private final AccountCache cache;
+
+    public AccountCacheInvalidationListener(AccountCache cache) { this.cache = cache; }
+
+    // every instance needs every invalidation, so each one joins with its own group id
+    @KafkaListener(topics = "${account.cache.invalidation.topic}", groupId = "account-service-cache-${random.uuid}",
+            properties = "spring.json.value.default.type=com.xulunh.accountservice.events.AccountCacheInvalidationListener$AccountInvalidation")
+    public void onInvalidation(ConsumerRecord<String, AccountInvalidation> record) {
+        if (record.value() != null) cache.evictLocal(record.value());
+    }
+
+    public record AccountInvalidation(Long id, String email, List<String> usernames) {}
+}
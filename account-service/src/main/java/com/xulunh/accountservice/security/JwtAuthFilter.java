@@ -7,11 +7,13 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.List;
 
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtTokenService tokenService;
@@ -38,7 +40,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             try{
                 Claims claims= tokenService.parse(jwt);
                 String subject= claims.getSubject(); //user's email
-                var auth= new UsernamePasswordAuthenticationToken(subject, null, Collections.emptyList());
+                var auth= new UsernamePasswordAuthenticationToken(subject, null, authorities(claims));
                 SecurityContextHolder.getContext().setAuthentication(auth);
             }
             catch (Exception e){
@@ -47,4 +49,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request,response);
     }
+
+    // "roles": ["ADMIN"] becomes ROLE_ADMIN; tokens without the claim carry no authorities
+    static List<GrantedAuthority> authorities(Claims claims) {
+        if (!(claims.get("roles") instanceof List<?> roles)) return List.of();
+        return roles.stream().map(r -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + r)).toList();
+    }
 }
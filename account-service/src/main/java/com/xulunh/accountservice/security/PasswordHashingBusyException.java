@@ -0,0 +1,24 @@
+package com.xulunh.accountservice.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+// Resolved by Spring MVC into 503 Service Unavailable with a Retry-After header
+public class PasswordHashingBusyException extends ResponseStatusException {
+    private final Duration retryAfter;
+
+    public PasswordHashingBusyException(Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent sign-ins, retry later");
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+        return headers;
+    }
+}
@@ -0,0 +1,119 @@
+package com.xulunh.accountservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xulunh.accountservice.dto.AccountResponse;
+import com.xulunh.accountservice.events.AccountCacheInvalidationListener.AccountInvalidation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Size- and TTL-bounded copy of accounts keyed by id, with email and username indexes pointing at the id.
+// Writes evict after commit; with account.cache.invalidation.topic set, evictions are also broadcast to the
+// other replicas. Stats are published as cache.* meters tagged cache=account-cache.
+@Component
+public class AccountCache {
+    private final Cache<Long, AccountResponse> byId;
+    private final Cache<String, Long> idByEmail;
+    private final Cache<String, Long> idByUsername;
+    private final ObjectProvider<KafkaTemplate<String, Object>> kafka;
+    private final String invalidationTopic;
+    // Bumped before every eviction; a load that saw an eviction start after it began is returned but not cached
+    private final AtomicLong evictions = new AtomicLong();
+
+    public AccountCache(MeterRegistry registry,
+                        @Value("${account.cache.max-size:10000}") long maxSize,
+                        @Value("${account.cache.ttl:10m}") Duration ttl,
+                        ObjectProvider<KafkaTemplate<String, Object>> kafka,
+                        @Value("${account.cache.invalidation.topic:}") String invalidationTopic) {
+        this.byId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        this.idByEmail = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        this.idByUsername = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        this.kafka = kafka;
+        this.invalidationTopic = invalidationTopic;
+        CaffeineCacheMetrics.monitor(registry, byId, "account-cache");
+    }
+
+    public AccountResponse getById(Long id, Supplier<AccountResponse> loader) {
+        var hit = byId.getIfPresent(id);
+        if (hit != null) return hit;
+        long generation = evictions.get();
+        return put(loader.get(), generation);
+    }
+
+    public AccountResponse getByEmail(String email, Supplier<AccountResponse> loader) {
+        return lookup(idByEmail, email, AccountResponse::email, loader);
+    }
+
+    public AccountResponse getByUsername(String username, Supplier<AccountResponse> loader) {
+        return lookup(idByUsername, username, AccountResponse::username, loader);
+    }
+
+    private AccountResponse lookup(Cache<String, Long> index, String key,
+                                   Function<AccountResponse, String> keyOf, Supplier<AccountResponse> loader) {
+        Long id = index.getIfPresent(key);
+        var hit = id != null ? byId.getIfPresent(id) : null;
+        // the index may still point at an account whose email/username has since changed
+        if (hit != null && key.equals(keyOf.apply(hit))) return hit;
+        long generation = evictions.get();
+        return put(loader.get(), generation);
+    }
+
+    // A read can load the old row, then lose the race to the writer's commit and after-commit eviction; caching it then
+    // would serve the old account for the whole TTL. The generation is checked inside the entry's compute, which an
+    // invalidate of the same id waits for, so either the check sees the eviction or the eviction removes this entry.
+    // Index entries only point at ids and are checked against the entry they reach, so they need no guard.
+    private AccountResponse put(AccountResponse account, long generation) {
+        byId.asMap().compute(account.id(), (id, current) -> evictions.get() == generation ? account : current);
+        if (account.email() != null) idByEmail.put(account.email(), account.id());
+        if (account.username() != null) idByUsername.put(account.username(), account.id());
+        return account;
+    }
+
+    // Evicts once the surrounding transaction commits; a read that loaded the old row before then does not cache it (see put)
+    public void evict(Long id, String email, String... usernames) {
+        var invalidation = new AccountInvalidation(id, email, Arrays.asList(usernames));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { evictAndBroadcast(invalidation); }
+            });
+        } else {
+            evictAndBroadcast(invalidation);
+        }
+    }
+
+    private void evictAndBroadcast(AccountInvalidation invalidation) {
+        evictLocal(invalidation);
+        if (invalidationTopic.isBlank()) return;
+        var template = kafka.getIfAvailable();
+        if (template == null) return;
+        try {
+            template.send(invalidationTopic, String.valueOf(invalidation.id()), invalidation);
+        } catch (Exception ignored) {
+            // the TTL bounds staleness on other replicas if the broadcast is lost
+        }
+    }
+
+    public void evictLocal(AccountInvalidation invalidation) {
+        evictions.incrementAndGet();
+        if (invalidation.id() != null) byId.invalidate(invalidation.id());
+        if (invalidation.email() != null) idByEmail.invalidate(invalidation.email());
+        if (invalidation.usernames() != null) {
+            for (var username : invalidation.usernames()) {
+                if (username != null) idByUsername.invalidate(username);
+            }
+        }
+    }
+}
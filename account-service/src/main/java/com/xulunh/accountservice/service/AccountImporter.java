@@ -0,0 +1,160 @@
+package com.xulunh.accountservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xulunh.accountservice.domain.Address;
+import com.xulunh.accountservice.dto.AccountCreateRequest;
+import com.xulunh.accountservice.dto.AccountImportResult;
+import com.xulunh.accountservice.security.PasswordHasher;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Bulk import of legacy accounts from an NDJSON stream of AccountCreateRequest lines. The stream is read one
+// batch at a time; each batch is hashed in parallel and written as one multi-row INSERT IGNORE. Ids come from the
+// AUTO_INCREMENT column, which avoids Hibernate's IDENTITY round-trip per row. INSERT IGNORE skips accounts that
+// already exist, and the statement's affected-row count is the number actually inserted. (ON DUPLICATE KEY UPDATE
+// would not give that: Connector/J connects with CLIENT_FOUND_ROWS, so a skipped row counts 1 like an inserted one.)
+// IGNORE also turns data errors (an over-long value, a NULL in a NOT NULL column) into warnings, so every warning
+// other than a duplicate key rolls the batch back and stops the import; batches before it stay, and a rerun skips them.
+@Service
+public class AccountImporter {
+    private static final String INSERT = """
+            insert ignore into user_accounts
+                (email, username, password_hash,
+                 ship_line1, ship_line2, ship_city, ship_state, ship_zip, ship_country,
+                 bill_line1, bill_line2, bill_city, bill_state, bill_zip, bill_country,
+                 created_at, updated_at)
+            values """;
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 17;
+    private static final int ER_DUP_ENTRY = 1062;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final PasswordHasher passwordHasher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final ExecutorService hashPool;
+
+    public AccountImporter(JdbcTemplate jdbc,
+                           PlatformTransactionManager transactionManager,
+                           PasswordHasher passwordHasher,
+                           ObjectMapper objectMapper,
+                           Validator validator,
+                           @Value("${account.import.batch-size:500}") int batchSize,
+                           @Value("${account.import.hash-threads:0}") int hashThreads) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.passwordHasher = passwordHasher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        // Separate from the login pool so a migration cannot push sign-ins into 503s
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashPool = Executors.newFixedThreadPool(threads);
+    }
+
+    public AccountImportResult importAccounts(InputStream ndjson) throws IOException {
+        int received = 0, inserted = 0, rejected = 0;
+        var batch = new ArrayList<AccountCreateRequest>(batchSize);
+        try (var lines = objectMapper.readerFor(AccountCreateRequest.class).<AccountCreateRequest>readValues(ndjson)) {
+            while (lines.hasNextValue()) {
+                var req = lines.nextValue();
+                received++;
+                if (!validator.validate(req).isEmpty()) {
+                    rejected++;
+                    continue;
+                }
+                batch.add(req);
+                if (batch.size() == batchSize) {
+                    inserted += insertBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) inserted += insertBatch(batch);
+        return new AccountImportResult(received, inserted, received - rejected - inserted, rejected);
+    }
+
+    int insertBatch(List<AccountCreateRequest> batch) {
+        var hashes = hashAll(batch);
+        var now = Timestamp.from(Instant.now());
+        var sql = INSERT + String.join(", ", Collections.nCopies(batch.size(), ROW));
+        return tx.execute(status -> jdbc.execute(sql, (PreparedStatementCallback<Integer>) ps -> {
+            for (int i = 0; i < batch.size(); i++) {
+                var req = batch.get(i);
+                int at = i * COLUMNS;
+                ps.setString(at + 1, req.email());
+                ps.setString(at + 2, req.username());
+                ps.setString(at + 3, hashes.get(i));
+                setAddress(ps, at + 4, AccountService.toAddress(req.shippingAddress()));
+                setAddress(ps, at + 10, AccountService.toAddress(req.billingAddress()));
+                ps.setTimestamp(at + 16, now);
+                ps.setTimestamp(at + 17, now);
+            }
+            int inserted = ps.executeUpdate();
+            checkWarnings(ps.getWarnings());
+            return inserted;
+        }));
+    }
+
+    static void checkWarnings(SQLWarning warning) {
+        for (var w = warning; w != null; w = w.getNextWarning()) {
+            if (w.getErrorCode() != ER_DUP_ENTRY) {
+                throw new IllegalStateException("Account import stopped, a batch was rejected: " + w.getMessage());
+            }
+        }
+    }
+
+    private static void setAddress(PreparedStatement ps, int from, Address a) throws SQLException {
+        String[] values = a == null ? new String[6]
+                : new String[]{a.getLine1(), a.getLine2(), a.getCity(), a.getState(), a.getZip(), a.getCountry()};
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) ps.setNull(from + i, Types.VARCHAR);
+            else ps.setString(from + i, values[i]);
+        }
+    }
+
+    private List<String> hashAll(List<AccountCreateRequest> batch) {
+        var tasks = new ArrayList<Callable<String>>(batch.size());
+        for (var req : batch) tasks.add(() -> passwordHasher.encodeNow(req.password()));
+        try {
+            var hashes = new ArrayList<String>(batch.size());
+            for (Future<String> f : hashPool.invokeAll(tasks)) hashes.add(f.get());
+            return hashes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing imported passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashPool.shutdownNow();
+    }
+}
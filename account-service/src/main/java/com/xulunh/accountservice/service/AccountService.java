@@ -7,39 +7,56 @@ import com.xulunh.accountservice.dto.AccountResponse;
 import com.xulunh.accountservice.dto.AccountUpdateRequest;
 import com.xulunh.accountservice.dto.AddressDto;
 import com.xulunh.accountservice.repository.UserAccountRepository;
+import com.xulunh.accountservice.security.PasswordHasher;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AccountService {
     private final UserAccountRepository userAccountRepository;
-    private final BCryptPasswordEncoder passwordEncoder=  new BCryptPasswordEncoder();
+    private final PasswordHasher passwordHasher;
+    private final AccountCache cache;
 
-    public AccountService(UserAccountRepository userAccountRepository) {
+    public AccountService(UserAccountRepository userAccountRepository, PasswordHasher passwordHasher, AccountCache cache) {
         this.userAccountRepository = userAccountRepository;
+        this.passwordHasher = passwordHasher;
+        this.cache = cache;
     }
 
-    @Transactional
+    // One INSERT; the unique indexes on email and username decide duplicates, so concurrent registrations
+    // cannot both pass a pre-check. Hashing happens before any transaction or connection is taken.
     public AccountResponse create(AccountCreateRequest req) {
-        if (userAccountRepository.existsByEmail(req.email())){
-            throw new IllegalStateException("Email already exists");
-        }
-        if(userAccountRepository.existsByUsername(req.username())){
-            throw new IllegalStateException("Username already exists");
-        }
         UserAccount userAccount = UserAccount.builder()
                 .email(req.email())
                 .username(req.username())
-                .password(passwordEncoder.encode(req.password()))
+                .password(passwordHasher.encode(req.password()))
                 .shipAddress(toAddress(req.shippingAddress()))
                 .billingAddress(toAddress(req.billingAddress()))
                 .build();
-        UserAccount createdUserAccount = userAccountRepository.save(userAccount); //returns the actual object in db managed by orm
+        UserAccount createdUserAccount;
+        try {
+            createdUserAccount = userAccountRepository.saveAndFlush(userAccount); //returns the actual object in db managed by orm
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateAccount(e, req);
+        }
+        cache.evict(createdUserAccount.getId(), createdUserAccount.getEmail(), createdUserAccount.getUsername());
         return toResponse(createdUserAccount);
     }
 
+    private IllegalStateException duplicateAccount(DataIntegrityViolationException e, AccountCreateRequest req) {
+        String constraint = e.getCause() instanceof ConstraintViolationException cve && cve.getConstraintName() != null
+                ? cve.getConstraintName().toLowerCase() : "";
+        if (constraint.contains("email")) return new IllegalStateException("Email already exists");
+        if (constraint.contains("username")) return new IllegalStateException("Username already exists");
+        // constraint named by the schema generator: only now is it worth a lookup to tell which one it was
+        if (userAccountRepository.existsByEmail(req.email())) return new IllegalStateException("Email already exists");
+        if (userAccountRepository.existsByUsername(req.username())) return new IllegalStateException("Username already exists");
+        return new IllegalStateException("Account could not be created", e);
+    }
+
     @Transactional
     public AccountResponse update(Long id, AccountUpdateRequest req) {
         UserAccount u = userAccountRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Account not found"));
@@ -49,6 +66,7 @@ public class AccountService {
             throw new IllegalStateException("Username already in use");
         }
 
+        cache.evict(u.getId(), u.getEmail(), u.getUsername(), req.username());
         u.setUsername(req.username());
         u.setShipAddress(toAddress(req.shippingAddress()));
         u.setBillingAddress(toAddress(req.billingAddress()));
@@ -56,22 +74,20 @@ public class AccountService {
         return toResponse(u);
     }
 
-    @Transactional(readOnly = true)
+    // Read-through: cache hits skip the transaction and the query entirely
     public AccountResponse getById(Long id) {
-        UserAccount u = userAccountRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Account not found"));
-        return toResponse(u);
+        return cache.getById(id, () -> toResponse(
+                userAccountRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Account not found"))));
     }
 
-    @Transactional(readOnly = true)
     public AccountResponse getByEmail(String email) {
-        UserAccount u = userAccountRepository.findByEmail(email).orElseThrow(() -> new EntityNotFoundException("Account not found"));
-        return toResponse(u);
+        return cache.getByEmail(email, () -> toResponse(
+                userAccountRepository.findByEmail(email).orElseThrow(() -> new EntityNotFoundException("Account not found"))));
     }
 
-    @Transactional(readOnly = true)
     public AccountResponse getByUsername(String username) {
-        UserAccount u = userAccountRepository.findByUsername(username).orElseThrow(() -> new EntityNotFoundException("Account not found"));
-        return toResponse(u);
+        return cache.getByUsername(username, () -> toResponse(
+                userAccountRepository.findByUsername(username).orElseThrow(() -> new EntityNotFoundException("Account not found"))));
     }
 
     private AccountResponse toResponse(UserAccount u) {
@@ -84,7 +100,7 @@ public class AccountService {
         );
     }
 
-    private Address toAddress(AddressDto d) {
+    static Address toAddress(AddressDto d) {
         if (d == null) return null;
         Address a = new Address();
         a.setLine1(d.line1());
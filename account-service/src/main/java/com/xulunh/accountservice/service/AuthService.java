@@ -3,27 +3,49 @@ package com.xulunh.accountservice.service;
 import com.xulunh.accountservice.domain.UserAccount;
 import com.xulunh.accountservice.repository.UserAccountRepository;
 import com.xulunh.accountservice.security.JwtTokenService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import com.xulunh.accountservice.security.PasswordHasher;
+import com.xulunh.accountservice.security.PasswordHashingBusyException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class AuthService {
     private final UserAccountRepository users;
     private final JwtTokenService jwt;
-    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    private final PasswordHasher hasher;
+    private final Set<String> adminEmails;
 
-    public AuthService(UserAccountRepository users, JwtTokenService jwt) {
+    public AuthService(UserAccountRepository users, JwtTokenService jwt, PasswordHasher hasher,
+                       @Value("${account.admin-emails:}") Set<String> adminEmails) {
         this.users = users;
         this.jwt = jwt;
+        this.hasher = hasher;
+        this.adminEmails = adminEmails;
     }
 
     public String login(String email, String rawPassword) {
         UserAccount u = users.findByEmail(email).orElseThrow(() -> new IllegalArgumentException("Invalid credentials"));
-        if (!encoder.matches(rawPassword, u.getPassword())) {
+        if (!hasher.matches(rawPassword, u.getPassword())) {
             throw new IllegalArgumentException("Invalid credentials");
         }
+        if (hasher.needsRehash(u.getPassword())) rehash(u, rawPassword);
+        // ADMIN is only ever granted by configuration, never by anything a user can set on their account
+        if (adminEmails.contains(u.getEmail())) {
+            return jwt.create(u.getEmail(), Map.of("uid", u.getId(), "roles", List.of("ADMIN")));
+        }
         return jwt.create(u.getEmail(), Map.of("uid", u.getId()));
     }
+
+    // Upgrade hashes made with an older BCrypt cost; a busy hasher just defers it to a later login
+    private void rehash(UserAccount u, String rawPassword) {
+        try {
+            u.setPassword(hasher.encode(rawPassword));
+            users.save(u);
+        } catch (PasswordHashingBusyException ignored) {
+        }
+    }
 }
@@ -1,21 +1,30 @@
 package com.xulunh.accountservice.web;
 
 import com.xulunh.accountservice.dto.AccountCreateRequest;
+import com.xulunh.accountservice.dto.AccountImportResult;
 import com.xulunh.accountservice.dto.AccountResponse;
 import com.xulunh.accountservice.dto.AccountUpdateRequest;
+import com.xulunh.accountservice.service.AccountImporter;
 import com.xulunh.accountservice.service.AccountService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @RestController
 @RequestMapping("/api/v1/accounts")
 public class AccountController {
 
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final AccountService accounts;
+    private final AccountImporter importer;
 
-    public AccountController(AccountService accounts) {
+    public AccountController(AccountService accounts, AccountImporter importer) {
         this.accounts = accounts;
+        this.importer = importer;
     }
 
     @PostMapping("/register")
@@ -24,6 +33,12 @@ public class AccountController {
         return accounts.create(req);
     }
 
+    // Legacy migration: one AccountCreateRequest JSON object per line, read as it streams in
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON)
+    public AccountImportResult importAccounts(InputStream body) throws IOException {
+        return importer.importAccounts(body);
+    }
+
     @GetMapping("/{id}")
     public AccountResponse getById(@PathVariable Long id) {
         return accounts.getById(id);
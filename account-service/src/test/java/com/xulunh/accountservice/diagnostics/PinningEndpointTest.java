@@ -0,0 +1,29 @@
+package com.xulunh.accountservice.diagnostics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// PinningEndpoint is the same class in every service and is covered in order-service; only the package it
+// attributes events to differs
+class PinningEndpointTest {
+
+    @Test
+    void ownFramesOnly_keepsOnlyEventsThatPassThroughThisService() {
+        var endpoint = new PinningEndpoint(new SimpleMeterRegistry(), Duration.ofMillis(20), true);
+        try {
+            endpoint.record(List.of("java.lang.Object.wait:-1", "com.mysql.cj.protocol.a.NativeSocketConnection.read:42",
+                    "com.xulunh.accountservice.service.AccountService.get:40"), Duration.ofMillis(30));
+            endpoint.record(List.of("java.lang.Object.wait:-1", "com.xulunh.orderservice.service.OrderService.get:40"), Duration.ofMillis(30));
+
+            assertThat(PinningEndpoint.OWN_PACKAGE).isEqualTo("com.xulunh.accountservice.");
+            assertThat(endpoint.report().events()).isEqualTo(1);
+        } finally {
+            endpoint.close();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.xulunh.accountservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtAuthFilterTest {
+    private final JwtTokenService tokens =
+            new JwtTokenService("change-me-32-chars-minimum-1234567890abcd", 60, 100, new SimpleMeterRegistry());
+
+    @Test
+    void authorities_mapsRolesClaimToSpringRoles() {
+        var claims = tokens.parse(tokens.create("admin@b.com", Map.of("uid", 1, "roles", List.of("ADMIN"))));
+
+        assertThat(JwtAuthFilter.authorities(claims)).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void authorities_emptyWithoutRolesClaim() {
+        var claims = tokens.parse(tokens.create("a@b.com", Map.of("uid", 2)));
+
+        assertThat(JwtAuthFilter.authorities(claims)).isEmpty();
+    }
+}
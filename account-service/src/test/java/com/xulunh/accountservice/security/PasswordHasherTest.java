@@ -0,0 +1,69 @@
+package com.xulunh.accountservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class PasswordHasherTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PasswordHasher hasher = new PasswordHasher(4, 1, 1, Duration.ofSeconds(2), registry);
+
+    @AfterEach
+    void tearDown() { hasher.shutdown(); }
+
+    @Test
+    void encodeAndMatches_recordLatency() {
+        var hash = hasher.encode("secret");
+
+        assertThat(hash).startsWith("$2a$04$");
+        assertThat(hasher.matches("secret", hash)).isTrue();
+        assertThat(hasher.matches("other", hash)).isFalse();
+        assertThat(registry.get("security.password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(registry.get("security.password.hash").tag("operation", "matches").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void needsRehash_whenStoredCostIsLower() {
+        var strong = new PasswordHasher(6, 1, 1, Duration.ofSeconds(1), new SimpleMeterRegistry());
+        try {
+            assertThat(strong.needsRehash(new BCryptPasswordEncoder(4).encode("x"))).isTrue();
+            assertThat(strong.needsRehash(new BCryptPasswordEncoder(6).encode("x"))).isFalse();
+        } finally {
+            strong.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsWith503WhenQueueIsFull() throws Exception {
+        // Occupy the single worker and the single queue slot
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        var running = CompletableFuture.runAsync(() -> hasher.run(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        var queued = CompletableFuture.runAsync(() -> hasher.encode("queued"));
+        while (registry.get("security.password.queue.depth").gauge().value() < 1) Thread.onSpinWait();
+
+        var ex = catchThrowableOfType(PasswordHashingBusyException.class, () -> hasher.encode("rejected"));
+
+        assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(ex.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(registry.get("security.password.rejected").counter().count()).isEqualTo(1);
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,112 @@
+package com.xulunh.accountservice.service;
+
+import com.xulunh.accountservice.dto.AccountResponse;
+import com.xulunh.accountservice.events.AccountCacheInvalidationListener.AccountInvalidation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+class AccountCacheTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final KafkaTemplate<String, Object> kafka = mock(KafkaTemplate.class);
+    private final ObjectProvider<KafkaTemplate<String, Object>> kafkaProvider = mock(ObjectProvider.class);
+
+    private AccountCache cache(String topic) {
+        when(kafkaProvider.getIfAvailable()).thenReturn(kafka);
+        return new AccountCache(registry, 100, Duration.ofMinutes(10), kafkaProvider, topic);
+    }
+
+    private static AccountResponse account(String username) {
+        return new AccountResponse(1L, "a@b.com", username, null, null);
+    }
+
+    @Test
+    void lookupsShareOneEntryAcrossIndexes() {
+        var cache = cache("");
+        var loads = new AtomicInteger();
+
+        cache.getByEmail("a@b.com", () -> { loads.incrementAndGet(); return account("alice"); });
+        cache.getById(1L, () -> { loads.incrementAndGet(); return account("alice"); });
+        cache.getByUsername("alice", () -> { loads.incrementAndGet(); return account("alice"); });
+
+        assertThat(loads).hasValue(1);
+        assertThat(registry.get("cache.gets").tag("cache", "account-cache").tag("result", "hit").functionCounter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void staleIndexEntryFallsBackToLoader() {
+        var cache = cache("");
+        cache.getByUsername("alice", () -> account("alice"));
+        // the id entry now carries a different username while the alice index entry still points at it
+        cache.evictLocal(new AccountInvalidation(1L, null, List.of()));
+        cache.getById(1L, () -> account("bob"));
+
+        var loaded = cache.getByUsername("alice", () -> account("alice2"));
+
+        assertThat(loaded.username()).isEqualTo("alice2");
+    }
+
+    @Test
+    void loadOverlappingAnEviction_isNotCached() {
+        var cache = cache("");
+        // the read loads the old row, then the writer commits and evicts before the read caches it
+        var stale = cache.getById(1L, () -> {
+            cache.evict(1L, "a@b.com", "alice");
+            return account("alice");
+        });
+        assertThat(stale.username()).isEqualTo("alice");
+
+        assertThat(cache.getById(1L, () -> account("alice2")).username()).isEqualTo("alice2");
+        assertThat(cache.getByEmail("a@b.com", () -> account("alice3")).username()).isEqualTo("alice2");
+    }
+
+    @Test
+    void lookupOverlappingAnEviction_isNotCached() {
+        var cache = cache("");
+        cache.getByEmail("a@b.com", () -> {
+            cache.evictLocal(new AccountInvalidation(1L, "a@b.com", List.of("alice")));
+            return account("alice");
+        });
+
+        var loads = new AtomicInteger();
+        var fresh = cache.getByEmail("a@b.com", () -> { loads.incrementAndGet(); return account("alice2"); });
+
+        assertThat(fresh.username()).isEqualTo("alice2");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evict_outsideTransaction_evictsAndBroadcasts() {
+        var cache = cache("account.cache.invalidations");
+        cache.getById(1L, () -> account("alice"));
+
+        cache.evict(1L, "a@b.com", "alice");
+
+        var loads = new AtomicInteger();
+        cache.getById(1L, () -> { loads.incrementAndGet(); return account("alice"); });
+        assertThat(loads).hasValue(1);
+        verify(kafka).send(eq("account.cache.invalidations"), eq("1"), any(AccountInvalidation.class));
+    }
+
+    @Test
+    void evict_withoutTopic_doesNotBroadcast() {
+        var cache = cache("");
+
+        cache.evict(1L, "a@b.com", "alice");
+
+        verify(kafka, never()).send(anyString(), anyString(), any());
+    }
+}
@@ -0,0 +1,112 @@
+package com.xulunh.accountservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xulunh.accountservice.security.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLWarning;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccountImporterTest {
+    private final SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+            "jdbc:h2:mem:import-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE", true);
+    private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    private final PasswordHasher hasher = new PasswordHasher(4, 1, 4, Duration.ofSeconds(1), new SimpleMeterRegistry());
+    private final AccountImporter importer = new AccountImporter(jdbc, new DataSourceTransactionManager(dataSource), hasher,
+            new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator(), 2, 2);
+
+    @BeforeEach
+    void createTable() {
+        jdbc.execute("""
+                create table user_accounts (
+                    id bigint auto_increment primary key,
+                    email varchar(255) not null, username varchar(255), password_hash varchar(255) not null,
+                    ship_line1 varchar(255), ship_line2 varchar(255), ship_city varchar(255), ship_state varchar(255),
+                    ship_zip varchar(255), ship_country varchar(255),
+                    bill_line1 varchar(255), bill_line2 varchar(255), bill_city varchar(255), bill_state varchar(255),
+                    bill_zip varchar(255), bill_country varchar(255),
+                    created_at timestamp, updated_at timestamp,
+                    constraint ux_user_accounts_email unique (email))
+                """);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importer.shutdown();
+        dataSource.destroy();
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importAccounts_countsOnlyRowsActuallyInserted() throws Exception {
+        jdbc.update("insert into user_accounts (email, username, password_hash) values ('c@d.com', 'c', 'x')");
+
+        var result = importer.importAccounts(ndjson(
+                "{\"email\":\"a@b.com\",\"username\":\"a\",\"password\":\"pa\"}",
+                "{\"email\":\"c@d.com\",\"username\":\"c\",\"password\":\"pc\"}",
+                "{\"email\":\"not-an-email\",\"username\":\"x\",\"password\":\"px\"}",
+                "{\"email\":\"e@f.com\",\"username\":\"e\",\"password\":\"pe\"}",
+                "{\"email\":\"e@f.com\",\"username\":\"e2\",\"password\":\"pe\"}"));
+
+        assertThat(result.received()).isEqualTo(5);
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(result.skipped()).isEqualTo(2);
+        assertThat(result.rejected()).isEqualTo(1);
+        assertThat(jdbc.queryForObject("select count(*) from user_accounts", Integer.class)).isEqualTo(3);
+        assertThat(jdbc.queryForObject("select username from user_accounts where email = 'c@d.com'", String.class))
+                .isEqualTo("c");
+    }
+
+    @Test
+    void importAccounts_storesHashedPasswordAndAddress() throws Exception {
+        importer.importAccounts(ndjson(
+                "{\"email\":\"e@f.com\",\"username\":\"e\",\"password\":\"pe\",\"shippingAddress\":{\"line1\":\"l1\",\"city\":\"NYC\"}}"));
+
+        var row = jdbc.queryForMap("select * from user_accounts where email = 'e@f.com'");
+        assertThat(hasher.matches("pe", (String) row.get("password_hash"))).isTrue();
+        assertThat(row.get("ship_line1")).isEqualTo("l1");
+        assertThat(row.get("ship_city")).isEqualTo("NYC");
+        assertThat(row.get("bill_line1")).isNull();
+        assertThat(row.get("created_at")).isNotNull();
+    }
+
+    @Test
+    void checkWarnings_allowsSkippedDuplicates_butNotDataErrors() {
+        var duplicate = new SQLWarning("Duplicate entry 'c@d.com' for key 'ux_user_accounts_email'", "23000", 1062);
+        AccountImporter.checkWarnings(null);
+        AccountImporter.checkWarnings(duplicate);
+
+        duplicate.setNextWarning(new SQLWarning("Data truncated for column 'ship_zip' at row 2", "01000", 1265));
+        assertThatThrownBy(() -> AccountImporter.checkWarnings(duplicate))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("ship_zip");
+    }
+
+    @Test
+    void importAccounts_rejectedBatch_writesNothingFromIt() {
+        var tooLong = "x".repeat(300);
+
+        assertThatThrownBy(() -> importer.importAccounts(ndjson(
+                "{\"email\":\"a@b.com\",\"username\":\"a\",\"password\":\"pa\"}",
+                "{\"email\":\"c@d.com\",\"username\":\"c\",\"password\":\"pc\",\"shippingAddress\":{\"zip\":\"" + tooLong + "\"}}")))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(jdbc.queryForObject("select count(*) from user_accounts", Integer.class)).isZero();
+    }
+}
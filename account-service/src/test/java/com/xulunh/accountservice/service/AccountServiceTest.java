@@ -5,9 +5,14 @@ import com.xulunh.accountservice.dto.AccountCreateRequest;
 import com.xulunh.accountservice.dto.AccountUpdateRequest;
 import com.xulunh.accountservice.dto.AddressDto;
 import com.xulunh.accountservice.repository.UserAccountRepository;
+import com.xulunh.accountservice.security.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.Test;
+import org.hibernate.exception.ConstraintViolationException;
 import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -15,18 +20,20 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
 import java.util.Optional;
 
+@SuppressWarnings("unchecked")
 class AccountServiceTest {
 
     private final UserAccountRepository repo = mock(UserAccountRepository.class);
-    private final AccountService service = new AccountService(repo);
+    private final AccountService service = new AccountService(repo,
+            new PasswordHasher(10, 1, 4, Duration.ofSeconds(1), new SimpleMeterRegistry()),
+            new AccountCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10), mock(ObjectProvider.class), ""));
 
     @Test
     void create_success_hashesPassword_andSaves() {
-        when(repo.existsByEmail("a@b.com")).thenReturn(false);
-        when(repo.existsByUsername("alice")).thenReturn(false);
-        when(repo.save(any(UserAccount.class))).thenAnswer(inv -> {
+        when(repo.saveAndFlush(any(UserAccount.class))).thenAnswer(inv -> {
             UserAccount u = inv.getArgument(0);
             u.setId(1L);
             return u;
@@ -44,26 +51,36 @@ class AccountServiceTest {
         assertThat(resp.email()).isEqualTo("a@b.com");
 
         ArgumentCaptor<UserAccount> captor = ArgumentCaptor.forClass(UserAccount.class);
-        verify(repo).save(captor.capture());
+        verify(repo).saveAndFlush(captor.capture());
+        verify(repo, never()).existsByEmail(any());
         assertThat(captor.getValue().getPassword()).isNotEqualTo("PlainPass");
         assertThat(captor.getValue().getPassword()).startsWith("$2"); // bcrypt hash
     }
 
     @Test
     void create_throwsOnDuplicateEmail() {
-        when(repo.existsByEmail("a@b.com")).thenReturn(true);
+        when(repo.saveAndFlush(any(UserAccount.class))).thenThrow(new DataIntegrityViolationException("dup",
+                new ConstraintViolationException("Duplicate entry", null, "user_accounts.ux_user_accounts_email")));
 
         var req = new AccountCreateRequest("a@b.com", "alice", "x", null, null);
-        assertThatThrownBy(() -> service.create(req)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.create(req))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Email already exists");
+        verify(repo, never()).existsByEmail(any());
     }
 
     @Test
     void create_throwsOnDuplicateUsername() {
+        // constraint with a generated name: the service falls back to a lookup to name the duplicate
+        when(repo.saveAndFlush(any(UserAccount.class))).thenThrow(new DataIntegrityViolationException("dup",
+                new ConstraintViolationException("Duplicate entry", null, "UK_r43af9ap4edm43mmtq01oddj6")));
         when(repo.existsByEmail("a@b.com")).thenReturn(false);
         when(repo.existsByUsername("alice")).thenReturn(true);
 
         var req = new AccountCreateRequest("a@b.com", "alice", "x", null, null);
-        assertThatThrownBy(() -> service.create(req)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.create(req))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Username already exists");
     }
 
     @Test
@@ -99,4 +116,33 @@ class AccountServiceTest {
         assertThatThrownBy(() -> service.update(1L, new AccountUpdateRequest("taken", null, null)))
                 .isInstanceOf(IllegalStateException.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getById_readsThroughCache() {
+        UserAccount u = UserAccount.builder()
+                .id(3L).email("a@b.com").username("alice").password("hash").build();
+        when(repo.findById(3L)).thenReturn(Optional.of(u));
+
+        service.getById(3L);
+        var resp = service.getById(3L);
+
+        assertThat(resp.username()).isEqualTo("alice");
+        verify(repo, times(1)).findById(3L);
+    }
+
+    @Test
+    void update_evictsCachedAccount() {
+        UserAccount u = UserAccount.builder()
+                .id(5L).email("a@b.com").username("old").password("hash").build();
+        when(repo.findById(5L)).thenReturn(Optional.of(u));
+        when(repo.findByUsername("old")).thenReturn(Optional.of(u));
+        when(repo.existsByUsername("newname")).thenReturn(false);
+        service.getByUsername("old");
+
+        service.update(5L, new AccountUpdateRequest("newname", null, null));
+        when(repo.findByUsername("old")).thenReturn(Optional.empty());
+
+        assertThat(service.getById(5L).username()).isEqualTo("newname");
+        assertThatThrownBy(() -> service.getByUsername("old")).isInstanceOf(EntityNotFoundException.class);
+    }
+}
@@ -3,20 +3,28 @@ package com.xulunh.accountservice.service;
 import com.xulunh.accountservice.domain.UserAccount;
 import com.xulunh.accountservice.repository.UserAccountRepository;
 import com.xulunh.accountservice.security.JwtTokenService;
+import com.xulunh.accountservice.security.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class AuthServiceTest {
 
     private final UserAccountRepository users = mock(UserAccountRepository.class);
     private final JwtTokenService jwt = mock(JwtTokenService.class);
-    private final AuthService service = new AuthService(users, jwt);
+    private final AuthService service = new AuthService(users, jwt,
+            new PasswordHasher(10, 1, 4, Duration.ofSeconds(1), new SimpleMeterRegistry()), Set.of("admin@b.com"));
 
     @Test
     void login_success_returnsToken() {
@@ -31,6 +39,25 @@ class AuthServiceTest {
 
         String token = service.login("a@b.com", "pass");
         assertThat(token).isEqualTo("token123");
+        verify(users, never()).save(any());
+    }
+
+    @Test
+    void login_rehashesPasswordStoredWithLowerCost() {
+        String weakHash = new BCryptPasswordEncoder(4).encode("pass");
+        var u = UserAccount.builder()
+                .id(7L)
+                .email("a@b.com")
+                .password(weakHash)
+                .build();
+        when(users.findByEmail("a@b.com")).thenReturn(Optional.of(u));
+        when(jwt.create(eq("a@b.com"), anyMap())).thenReturn("token123");
+
+        service.login("a@b.com", "pass");
+
+        verify(users).save(u);
+        assertThat(u.getPassword()).startsWith("$2a$10$");
+        assertThat(new BCryptPasswordEncoder().matches("pass", u.getPassword())).isTrue();
     }
 
     @Test
@@ -39,6 +66,19 @@ class AuthServiceTest {
         assertThatThrownBy(() -> service.login("x@y.com", "any"))
                 .isInstanceOf(IllegalArgumentException.class);
     }
-}
 
+    @Test
+    void login_grantsAdminRoleOnlyToConfiguredEmails() {
+        String hash = new BCryptPasswordEncoder().encode("pass");
+        var admin = UserAccount.builder().id(1L).email("admin@b.com").password(hash).build();
+        var user = UserAccount.builder().id(2L).email("a@b.com").password(hash).build();
+        when(users.findByEmail("admin@b.com")).thenReturn(Optional.of(admin));
+        when(users.findByEmail("a@b.com")).thenReturn(Optional.of(user));
+
+        service.login("admin@b.com", "pass");
+        service.login("a@b.com", "pass");
 
+        verify(jwt).create("admin@b.com", Map.of("uid", 1L, "roles", List.of("ADMIN")));
+        verify(jwt).create("a@b.com", Map.of("uid", 2L));
+    }
+}
@@ -0,0 +1,18 @@
+package com.xulunh.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// JMH's own command line, except results default to JSON in jmh-result.json so runs can be diffed.
+// e.g. java -jar target/benchmarks.jar Jwt -rff before.json
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        var cli = new CommandLineOptions(args);
+        var options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if (!cli.getResult().hasValue()) options.result("jmh-result.json");
+        new Runner(options.build()).run();
+    }
+}
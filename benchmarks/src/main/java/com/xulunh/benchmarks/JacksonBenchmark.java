@@ -0,0 +1,60 @@
+package com.xulunh.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xulunh.itemservice.dto.ItemDto;
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.dto.OrderResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Response-body serialisation with an ObjectMapper configured the way Spring Boot builds it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+    @Param({"10", "100", "1000"})
+    int size;
+
+    private ObjectMapper objectMapper;
+    private List<OrderResponse> orders;
+    private List<ItemDto> items;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        orders = new ArrayList<>(size);
+        items = new ArrayList<>(size);
+        var now = Instant.now();
+        for (int i = 0; i < size; i++) {
+            var lines = List.of(
+                    new OrderResponse.Item("item-" + i, "UPC-" + i, "Item " + i, Money.of(new BigDecimal("19.99")), 2),
+                    new OrderResponse.Item("item-x" + i, "UPC-X" + i, "Other " + i, Money.of(new BigDecimal("5.00")), 1));
+            orders.add(new OrderResponse(UUID.randomUUID(), "user" + i + "@example.com", "CREATED",
+                    Money.of(new BigDecimal("44.98")), lines, now, now));
+            items.add(new ItemDto("id-" + i, "UPC-" + i, "Item " + i,
+                    com.xulunh.itemservice.domain.Money.of(new BigDecimal("19.99")),
+                    List.of("https://cdn.example.com/" + i + ".jpg"), 100));
+        }
+    }
+
+    @Benchmark
+    public byte[] orderResponses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] itemDtos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(items);
+    }
+}
@@ -0,0 +1,70 @@
+package com.xulunh.orderservice.events;
+
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.events.OrderEvents.OrderEvent;
+import com.xulunh.orderservice.events.PaymentEventsListener.PaymentEvent;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// One order.events record written and one payment.events record read, JSON against EventCodec's binary layout, through
+// the serializer pair the services configure
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+    @Param({"json", "binary"})
+    String format;
+
+    private EventSerializer serializer;
+    private EventDeserializer deserializer;
+    private OrderEvent orderEvent;
+    private byte[] paymentEventBytes;
+    private RecordHeaders paymentEventHeaders;
+
+    @Setup
+    public void setUp() {
+        serializer = new EventSerializer();
+        serializer.configure(Map.of(EventSerializer.FORMAT_CONFIG, format, JsonSerializer.ADD_TYPE_INFO_HEADERS, false), false);
+        deserializer = new EventDeserializer();
+        deserializer.configure(Map.of(JsonDeserializer.VALUE_DEFAULT_TYPE, PaymentEvent.class.getName(),
+                JsonDeserializer.TRUSTED_PACKAGES, "*", JsonDeserializer.USE_TYPE_INFO_HEADERS, false), false);
+
+        var orderId = UUID.randomUUID();
+        var total = Money.of(new BigDecimal("44.98"));
+        orderEvent = new OrderEvent("OrderCancelled", orderId, "buyer@example.com", "CANCELED", total, Instant.now());
+
+        paymentEventHeaders = new RecordHeaders();
+        var paymentEvent = new PaymentEvent("PaymentSucceeded", orderId, UUID.randomUUID(), total, Instant.now());
+        if ("binary".equals(format)) {
+            // what payment-service's EventCodec writes for a PaymentSucceeded event (this module has no encoder for it)
+            paymentEventBytes = HexFormat.of().parseHex("0f00105061796d656e745375636365656465643f2504e04f8911d39a0c0305e82c3301"
+                    + "7c9e6679742540de944be07fc1f90ae700000000000011925553440006475ef64ed580");
+            paymentEventHeaders.add(EventCodec.HEADER, EventCodec.PAYMENT_EVENT_V1.getBytes(StandardCharsets.US_ASCII));
+        } else {
+            paymentEventBytes = new JsonSerializer<>().serialize("payment.events", paymentEvent);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeOrderEvent() {
+        return serializer.serialize("order.events", new RecordHeaders(), orderEvent);
+    }
+
+    @Benchmark
+    public Object readPaymentEvent() {
+        return deserializer.deserialize("payment.events", paymentEventHeaders, paymentEventBytes);
+    }
+}
@@ -0,0 +1,60 @@
+package com.xulunh.orderservice.service;
+
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderItem;
+import com.xulunh.orderservice.dto.OrderResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Lives in OrderService's package to reach the package-private toResponse/totalOf
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+    @Param({"1", "10", "100"})
+    int lines;
+
+    private Order order;
+    private List<OrderItem> items;
+
+    @Setup
+    public void setUp() {
+        items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            var oi = new OrderItem();
+            oi.setItemId("item-" + i);
+            oi.setUpc("UPC-" + i);
+            oi.setName("Item " + i);
+            oi.setUnitPrice(new Money(1999 + i, Money.DEFAULT_CURRENCY));
+            oi.setQuantity(1 + i % 5);
+            items.add(oi);
+        }
+        order = new Order();
+        order.setId(UUID.randomUUID());
+        order.setAccountEmail("bench@example.com");
+        order.setStatus("CREATED");
+        order.setItems(items);
+        order.setTotalAmount(OrderService.totalOf(items));
+        order.setCreatedAt(Instant.now());
+        order.setUpdatedAt(order.getCreatedAt());
+    }
+
+    @Benchmark
+    public OrderResponse toResponse() {
+        return OrderService.toResponse(order);
+    }
+
+    @Benchmark
+    public Money totalOf() {
+        return OrderService.totalOf(items);
+    }
+}
@@ -0,0 +1,58 @@
+package com.xulunh.itemservice.config;
+
+import com.xulunh.itemservice.domain.Money;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+
+// Money is written as {units: long, currency: "USD"}. Prices saved before that were BigDecimal strings (or Decimal128)
+// and are still read, in the default currency; they are rewritten in the new shape the next time the item is saved.
+@Configuration
+public class MongoConfig {
+    @Bean
+    MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                new MoneyToDocument(), new DocumentToMoney(), new StringToMoney(), new Decimal128ToMoney()));
+    }
+
+    @WritingConverter
+    static class MoneyToDocument implements Converter<Money, Document> {
+        @Override
+        public Document convert(Money money) {
+            return new Document("units", money.units()).append("currency", money.currency().getCurrencyCode());
+        }
+    }
+
+    @ReadingConverter
+    static class DocumentToMoney implements Converter<Document, Money> {
+        @Override
+        public Money convert(Document doc) {
+            return new Money(((Number) doc.get("units")).longValue(), Currency.getInstance(doc.getString("currency")));
+        }
+    }
+
+    @ReadingConverter
+    static class StringToMoney implements Converter<String, Money> {
+        @Override
+        public Money convert(String amount) {
+            return Money.of(new BigDecimal(amount));
+        }
+    }
+
+    @ReadingConverter
+    static class Decimal128ToMoney implements Converter<Decimal128, Money> {
+        @Override
+        public Money convert(Decimal128 amount) {
+            return Money.of(amount.bigDecimalValue());
+        }
+    }
+}
@@ -3,9 +3,9 @@ package com.xulunh.itemservice.domain;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 @Getter
@@ -15,8 +15,9 @@ public class Item {
     @Id
     private String id;
     private String name;
+    @Indexed(unique = true)
     private String upc;
-    private BigDecimal unitPrice;
+    private Money unitPrice;
     private List<String> pictureUrls;
     private Integer availableUnits;
 }
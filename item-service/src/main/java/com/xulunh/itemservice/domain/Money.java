@@ -0,0 +1,146 @@
+package com.xulunh.itemservice.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Currency;
+
+// An exact amount in minor units (cents for USD), so 9.5 and 9.50 are the same price. MongoConfig stores it as
+// {units, currency}; on the wire it stays a JSON decimal number in DEFAULT_CURRENCY, as the BigDecimal it replaces was.
+@JsonSerialize(using = Money.JsonWriter.class)
+@JsonDeserialize(using = Money.JsonReader.class)
+public record Money(long units, Currency currency) {
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    public Money {
+        if (currency == null) throw new IllegalArgumentException("Currency is required");
+        fractionDigits(currency);
+    }
+
+    public static Money zero(Currency currency) {
+        return new Money(0, currency);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_CURRENCY);
+    }
+
+    // Throws ArithmeticException rather than rounding when the amount has more decimals than the currency allows
+    public static Money of(BigDecimal amount, Currency currency) {
+        return new Money(amount.setScale(fractionDigits(currency)).unscaledValue().longValueExact(), currency);
+    }
+
+    public static Money parse(CharSequence text, Currency currency) {
+        int digits = fractionDigits(currency);
+        int n = text.length();
+        int i = n > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        if (i == n || (i == n - 1 && text.charAt(i) == '.')) throw new NumberFormatException("Not an amount: " + text);
+        long units = 0;
+        int decimals = -1;
+        for (; i < n; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            // exponents and other rare spellings
+            if (c < '0' || c > '9') return of(new BigDecimal(text.toString()), currency);
+            if (decimals >= 0 && ++decimals > digits) {
+                if (c != '0') throw new ArithmeticException("More than " + digits + " decimals for " + currency + ": " + text);
+                continue;
+            }
+            units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+        }
+        units = Math.multiplyExact(units, POWERS_OF_TEN[digits - Math.min(Math.max(decimals, 0), digits)]);
+        return new Money(text.charAt(0) == '-' ? -units : units, currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(units, other.units), currency);
+    }
+
+    public Money times(int quantity) {
+        return new Money(Math.multiplyExact(units, quantity), currency);
+    }
+
+    public boolean isPositive() {
+        return units > 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, fractionDigits(currency));
+    }
+
+    public String toPlainString() {
+        int digits = fractionDigits(currency);
+        if (digits == 0) return Long.toString(units);
+        long scale = POWERS_OF_TEN[digits];
+        var sb = new StringBuilder(24);
+        if (units < 0) sb.append('-');
+        sb.append(Math.abs(units / scale)).append('.');
+        String fraction = Long.toString(Math.abs(units % scale));
+        for (int pad = digits - fraction.length(); pad > 0; pad--) sb.append('0');
+        return sb.append(fraction).toString();
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency.getCurrencyCode();
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+
+    private static int fractionDigits(Currency currency) {
+        int digits = Math.max(currency.getDefaultFractionDigits(), 0);
+        if (digits >= POWERS_OF_TEN.length) throw new IllegalArgumentException("Unsupported currency: " + currency);
+        return digits;
+    }
+
+    static final class JsonWriter extends StdSerializer<Money> {
+        JsonWriter() {
+            super(Money.class);
+        }
+
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(value.toPlainString());
+        }
+    }
+
+    static final class JsonReader extends StdDeserializer<Money> {
+        JsonReader() {
+            super(Money.class);
+        }
+
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.hasToken(JsonToken.VALUE_NUMBER_INT) && !p.hasToken(JsonToken.VALUE_NUMBER_FLOAT)
+                    && !p.hasToken(JsonToken.VALUE_STRING)) {
+                return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+            }
+            String text = p.getText();
+            try {
+                return parse(text.strip(), DEFAULT_CURRENCY);
+            } catch (ArithmeticException | NumberFormatException e) {
+                throw InvalidFormatException.from(p, e.getMessage(), text, Money.class);
+            }
+        }
+    }
+}
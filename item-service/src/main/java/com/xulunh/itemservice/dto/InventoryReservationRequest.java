@@ -0,0 +1,14 @@
+package com.xulunh.itemservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record InventoryReservationRequest(
+        @NotEmpty List<@Valid Line> lines
+) {
+    public record Line(@NotBlank String itemId, @Min(1) int quantity) {}
+}
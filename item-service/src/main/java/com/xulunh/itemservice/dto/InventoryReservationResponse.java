@@ -0,0 +1,9 @@
+package com.xulunh.itemservice.dto;
+
+import java.util.List;
+
+public record InventoryReservationResponse(
+        boolean reserved,
+        List<String> insufficient // item ids that could not cover the requested quantity
+) {
+}
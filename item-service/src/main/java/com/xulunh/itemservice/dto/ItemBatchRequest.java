@@ -0,0 +1,11 @@
+package com.xulunh.itemservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ItemBatchRequest(
+        @NotEmpty @Size(max = 500) List<String> upcs
+) {
+}
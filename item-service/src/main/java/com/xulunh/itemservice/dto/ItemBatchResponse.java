@@ -0,0 +1,9 @@
+package com.xulunh.itemservice.dto;
+
+import java.util.List;
+
+public record ItemBatchResponse(
+        List<ItemDto> items,
+        List<String> missing
+) {
+}
@@ -1,17 +1,17 @@
 package com.xulunh.itemservice.dto;
 
+import com.xulunh.itemservice.domain.Money;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 public record ItemDto(
         String id,
         @NotBlank String upc,
         @NotBlank String name,
-        @NotNull BigDecimal unitPrice,
+        @NotNull Money unitPrice,
         List<String> pictureUrls,
         @NotNull @Min(0) Integer availableUnits
 ) {
@@ -0,0 +1,10 @@
+package com.xulunh.itemservice.dto;
+
+import java.util.List;
+
+// next is the id to pass as after= for the following page; null on the last page
+public record ItemPage(
+        List<ItemDto> items,
+        String next
+) {
+}
@@ -0,0 +1,20 @@
+package com.xulunh.itemservice.events;
+
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ItemEvents {
+    private final KafkaTemplate<String, Object> kafka;
+    public ItemEvents(KafkaTemplate<String, Object> kafka) { this.kafka = kafka; }
+
+    public void publishCreated(String itemId, String upc) {
+        kafka.send("item.events", upc, new ItemEvent("ItemCreated", itemId, upc));
+    }
+
+    public void publishInventoryChanged(String itemId, String upc) {
+        kafka.send("item.events", upc, new ItemEvent("ItemInventoryChanged", itemId, upc));
+    }
+
+    public record ItemEvent(String type, String itemId, String upc) {}
+}
@@ -0,0 +1,15 @@
+package com.xulunh.itemservice.repository;
+
+import com.xulunh.itemservice.domain.Item;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ItemCatalogRepository {
+    // Keyset page ordered by _id; an empty fields collection loads every field
+    List<Item> findPageAfter(String afterId, int limit, Collection<String> fields);
+
+    // Cursor-backed; callers must close the stream
+    Stream<Item> streamAll(Collection<String> fields);
+}
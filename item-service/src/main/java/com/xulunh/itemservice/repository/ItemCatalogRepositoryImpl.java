@@ -0,0 +1,38 @@
+package com.xulunh.itemservice.repository;
+
+import com.xulunh.itemservice.domain.Item;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+class ItemCatalogRepositoryImpl implements ItemCatalogRepository {
+    private final MongoOperations mongo;
+
+    ItemCatalogRepositoryImpl(MongoOperations mongo) {
+        this.mongo = mongo;
+    }
+
+    @Override
+    public List<Item> findPageAfter(String afterId, int limit, Collection<String> fields) {
+        var query = projected(new Query(), fields).with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+        if (afterId != null && !afterId.isBlank()) {
+            query.addCriteria(Criteria.where("_id").gt(afterId));
+        }
+        return mongo.find(query, Item.class);
+    }
+
+    @Override
+    public Stream<Item> streamAll(Collection<String> fields) {
+        return mongo.stream(projected(new Query(), fields).with(Sort.by(Sort.Direction.ASC, "_id")), Item.class);
+    }
+
+    private static Query projected(Query query, Collection<String> fields) {
+        fields.forEach(f -> query.fields().include(f));
+        return query;
+    }
+}
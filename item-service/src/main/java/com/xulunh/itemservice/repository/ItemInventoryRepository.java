@@ -0,0 +1,17 @@
+package com.xulunh.itemservice.repository;
+
+import com.xulunh.itemservice.domain.Item;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ItemInventoryRepository {
+    // Decrements every item or none of them; returns the item id that was short (empty on success)
+    List<String> reserveAll(Map<String, Integer> quantitiesByItemId);
+
+    void releaseAll(Map<String, Integer> quantitiesByItemId);
+
+    // Adds delta unless that would take availableUnits below zero; returns the updated item (empty when short or missing)
+    Optional<Item> adjust(String itemId, int delta);
+}
@@ -0,0 +1,57 @@
+package com.xulunh.itemservice.repository;
+
+import com.xulunh.itemservice.domain.Item;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Each line is a single conditional $inc, so concurrent buyers can never drive availableUnits below zero.
+// The items collection runs on a standalone mongod, so a short line rolls back the lines already taken
+// instead of relying on a multi-document transaction.
+class ItemInventoryRepositoryImpl implements ItemInventoryRepository {
+    private final MongoOperations mongo;
+
+    ItemInventoryRepositoryImpl(MongoOperations mongo) {
+        this.mongo = mongo;
+    }
+
+    @Override
+    public List<String> reserveAll(Map<String, Integer> quantitiesByItemId) {
+        var taken = new ArrayList<Map.Entry<String, Integer>>();
+        for (var line : quantitiesByItemId.entrySet()) {
+            var query = Query.query(Criteria.where("_id").is(line.getKey()).and("availableUnits").gte(line.getValue()));
+            var res = mongo.updateFirst(query, new Update().inc("availableUnits", -line.getValue()), Item.class);
+            if (res.getModifiedCount() == 1) {
+                taken.add(line);
+                continue;
+            }
+            for (var t : taken) increment(t.getKey(), t.getValue());
+            return List.of(line.getKey());
+        }
+        return List.of();
+    }
+
+    @Override
+    public void releaseAll(Map<String, Integer> quantitiesByItemId) {
+        quantitiesByItemId.forEach(this::increment);
+    }
+
+    @Override
+    public Optional<Item> adjust(String itemId, int delta) {
+        var criteria = Criteria.where("_id").is(itemId);
+        if (delta < 0) criteria = criteria.and("availableUnits").gte(-delta);
+        return Optional.ofNullable(mongo.findAndModify(Query.query(criteria), new Update().inc("availableUnits", delta),
+                FindAndModifyOptions.options().returnNew(true), Item.class));
+    }
+
+    private void increment(String itemId, int quantity) {
+        mongo.updateFirst(Query.query(Criteria.where("_id").is(itemId)), new Update().inc("availableUnits", quantity), Item.class);
+    }
+}
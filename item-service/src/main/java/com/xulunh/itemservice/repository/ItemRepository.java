@@ -3,9 +3,12 @@ package com.xulunh.itemservice.repository;
 import com.xulunh.itemservice.domain.Item;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface ItemRepository extends MongoRepository<Item,String> {
+public interface ItemRepository extends MongoRepository<Item,String>, ItemInventoryRepository, ItemCatalogRepository {
     Optional<Item> findByUpc(String upc);
+    List<Item> findByUpcIn(Collection<String> upcs);
     boolean existsByUpc(String upc);
 }
@@ -1,22 +1,53 @@
 package com.xulunh.itemservice.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xulunh.itemservice.domain.Item;
+import com.xulunh.itemservice.dto.InventoryReservationRequest;
+import com.xulunh.itemservice.dto.InventoryReservationResponse;
+import com.xulunh.itemservice.dto.ItemBatchRequest;
+import com.xulunh.itemservice.dto.ItemBatchResponse;
 import com.xulunh.itemservice.dto.ItemDto;
+import com.xulunh.itemservice.dto.ItemPage;
+import com.xulunh.itemservice.events.ItemEvents;
 import com.xulunh.itemservice.repository.ItemRepository;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/items")
 public class ItemController {
 
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("id", "upc", "name", "unitPrice", "pictureUrls", "availableUnits");
+
     private final ItemRepository itemRepository;
-    public ItemController(ItemRepository itemRepository) {
+    private final ItemEvents itemEvents;
+    private final ObjectMapper objectMapper;
+    private final Duration exportTimeout;
+    public ItemController(ItemRepository itemRepository, ItemEvents itemEvents, ObjectMapper objectMapper,
+                          @Value("${item.export.timeout:30m}") Duration exportTimeout) {
         this.itemRepository = itemRepository;
+        this.itemEvents = itemEvents;
+        this.objectMapper = objectMapper;
+        this.exportTimeout = exportTimeout;
     }
     @GetMapping("/by-upc")
     public ItemDto getByUpc(@RequestParam String upc) {
@@ -24,6 +55,14 @@ public class ItemController {
         return toDto(i);
     }
 
+    @PostMapping("/by-upcs")
+    public ItemBatchResponse getByUpcs(@Valid @RequestBody ItemBatchRequest req) {
+        var upcs = new LinkedHashSet<>(req.upcs());
+        var found = itemRepository.findByUpcIn(upcs).stream().map(this::toDto).toList();
+        found.forEach(d -> upcs.remove(d.upc()));
+        return new ItemBatchResponse(found, List.copyOf(upcs));
+    }
+
     @GetMapping("/{id}")
     public ItemDto getById(@PathVariable String id) {
         Item i= itemRepository.findById(id).orElseThrow();
@@ -38,6 +77,7 @@ public class ItemController {
         }
         Item i= toEntity(dto);
         Item newItem=itemRepository.save(i);
+        try { itemEvents.publishCreated(newItem.getId(), newItem.getUpc()); } catch (Exception ignored) {}
         return toDto(newItem);
 
     }
@@ -46,12 +86,84 @@ public class ItemController {
         return itemRepository.findAll().stream().map(this::toDto).toList();
     }
 
+    // Keyset pagination on _id: pass the previous page's next as after=. fields= limits the loaded fields (id is always returned).
+    @GetMapping(params = "limit")
+    public ItemPage list(@RequestParam int limit, @RequestParam(required = false) String after,
+                         @RequestParam(required = false) List<String> fields) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        var rows = itemRepository.findPageAfter(after, pageSize + 1, projection(fields));
+        boolean more = rows.size() > pageSize;
+        var items = (more ? rows.subList(0, pageSize) : rows).stream().map(this::toDto).toList();
+        return new ItemPage(items, more ? items.get(items.size() - 1).id() : null);
+    }
+
+    // Walks a Mongo cursor and writes one item per line, so memory stays flat however large the catalog is. Runs as an
+    // async request under its own timeout; the container default, which every other request keeps, is far too short.
+    @GetMapping(produces = APPLICATION_NDJSON)
+    public WebAsyncTask<Void> stream(@RequestParam(required = false) List<String> fields, HttpServletResponse response) {
+        var projection = projection(fields);
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            response.setContentType(APPLICATION_NDJSON);
+            var out = response.getOutputStream();
+            var writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try (var items = itemRepository.streamAll(projection)) {
+                var it = items.iterator();
+                while (it.hasNext()) {
+                    writer.writeValue(out, toDto(it.next()));
+                    out.write('\n');
+                }
+            }
+            out.flush();
+            return null;
+        });
+    }
+
+    // Same conditional $inc as reservations, so a manual correction never overwrites stock taken concurrently
     @PatchMapping("/{id}/inventory")
     public ItemDto updateInventory(@PathVariable String id, @RequestParam int delta) {
-        Item i = itemRepository.findById(id).orElseThrow();
-        int newQty = Math.max(0, (i.getAvailableUnits() == null ? 0 : i.getAvailableUnits()) + delta);
-        i.setAvailableUnits(newQty);
-        return toDto(itemRepository.save(i));
+        var adjusted = itemRepository.adjust(id, delta);
+        if (adjusted.isEmpty()) {
+            if (!itemRepository.existsById(id)) throw new NoSuchElementException();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient stock for item " + id);
+        }
+        Item saved = adjusted.get();
+        try { itemEvents.publishInventoryChanged(saved.getId(), saved.getUpc()); } catch (Exception ignored) {}
+        return toDto(saved);
+    }
+
+    // All-or-nothing stock decrement for a whole order; 409 lists the items that were short
+    @PostMapping("/inventory/reservations")
+    public ResponseEntity<InventoryReservationResponse> reserve(@Valid @RequestBody InventoryReservationRequest req) {
+        var insufficient = itemRepository.reserveAll(quantitiesByItemId(req));
+        if (!insufficient.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new InventoryReservationResponse(false, insufficient));
+        }
+        return ResponseEntity.ok(new InventoryReservationResponse(true, List.of()));
+    }
+
+    @PostMapping("/inventory/releases")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void release(@Valid @RequestBody InventoryReservationRequest req) {
+        itemRepository.releaseAll(quantitiesByItemId(req));
+    }
+
+    private Map<String, Integer> quantitiesByItemId(InventoryReservationRequest req) {
+        var quantities = new LinkedHashMap<String, Integer>();
+        for (var line : req.lines()) quantities.merge(line.itemId(), line.quantity(), Integer::sum);
+        return quantities;
+    }
+
+    private List<String> projection(List<String> fields) {
+        if (fields == null) return List.of();
+        var projection = new ArrayList<String>();
+        for (var f : fields) {
+            if (f.isBlank()) continue;
+            if (!PROJECTABLE_FIELDS.contains(f)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + f);
+            }
+            projection.add(f);
+        }
+        return projection;
     }
 
     private Item toEntity(ItemDto d) {
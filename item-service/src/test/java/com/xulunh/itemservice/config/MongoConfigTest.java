@@ -0,0 +1,53 @@
+package com.xulunh.itemservice.config;
+
+import com.xulunh.itemservice.domain.Item;
+import com.xulunh.itemservice.domain.Money;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoConfigTest {
+
+    private final MappingMongoConverter converter = converter();
+
+    private static MappingMongoConverter converter() {
+        var conversions = new MongoConfig().mongoCustomConversions();
+        var context = new MongoMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        var converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    @Test
+    void unitPrice_isWrittenAsUnitsAndCurrency_andReadBack() {
+        var item = new Item();
+        item.setUpc("U1");
+        item.setUnitPrice(new Money(1999, Currency.getInstance("EUR")));
+        var doc = new Document();
+
+        converter.write(item, doc);
+
+        assertThat(doc.get("unitPrice", Document.class))
+                .isEqualTo(new Document("units", 1999L).append("currency", "EUR"));
+        assertThat(converter.read(Item.class, doc).getUnitPrice()).isEqualTo(item.getUnitPrice());
+    }
+
+    @Test
+    void legacyDecimalPrices_areReadInTheDefaultCurrency() {
+        var asString = new Document("upc", "U1").append("unitPrice", "19.9");
+        var asDecimal = new Document("upc", "U2").append("unitPrice", new Decimal128(new BigDecimal("5.00")));
+
+        assertThat(converter.read(Item.class, asString).getUnitPrice()).isEqualTo(new Money(1990, Money.DEFAULT_CURRENCY));
+        assertThat(converter.read(Item.class, asDecimal).getUnitPrice()).isEqualTo(new Money(500, Money.DEFAULT_CURRENCY));
+    }
+}
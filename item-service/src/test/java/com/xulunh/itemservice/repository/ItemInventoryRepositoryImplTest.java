@@ -0,0 +1,81 @@
+package com.xulunh.itemservice.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import com.xulunh.itemservice.domain.Item;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ItemInventoryRepositoryImplTest {
+
+    private final MongoOperations mongo = mock(MongoOperations.class);
+    private final ItemInventoryRepositoryImpl repo = new ItemInventoryRepositoryImpl(mongo);
+
+    private static UpdateResult modified(long n) {
+        return UpdateResult.acknowledged(n, n, null);
+    }
+
+    @Test
+    void reserveAll_decrementsEveryLine_withStockGuard() {
+        when(mongo.updateFirst(any(Query.class), any(Update.class), eq(Item.class))).thenReturn(modified(1));
+        var lines = new LinkedHashMap<String, Integer>();
+        lines.put("i1", 2);
+        lines.put("i2", 3);
+
+        assertThat(repo.reserveAll(lines)).isEmpty();
+
+        var queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongo, times(2)).updateFirst(queries.capture(), any(Update.class), eq(Item.class));
+        assertThat(queries.getAllValues().get(0).getQueryObject().toJson()).contains("\"availableUnits\": {\"$gte\": 2}");
+    }
+
+    @Test
+    void reserveAll_rollsBackTakenLines_whenOneIsShort() {
+        when(mongo.updateFirst(any(Query.class), any(Update.class), eq(Item.class)))
+                .thenReturn(modified(1), modified(0), modified(1));
+        var lines = new LinkedHashMap<String, Integer>();
+        lines.put("i1", 2);
+        lines.put("i2", 3);
+
+        assertThat(repo.reserveAll(lines)).isEqualTo(List.of("i2"));
+
+        var updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongo, times(3)).updateFirst(any(Query.class), updates.capture(), eq(Item.class));
+        assertThat(updates.getAllValues().get(2).getUpdateObject().toJson()).contains("\"availableUnits\": 2");
+    }
+
+    @Test
+    void adjust_decrementGuardsStock_andReturnsUpdatedItem() {
+        var updated = new Item();
+        when(mongo.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Item.class)))
+                .thenReturn(updated);
+
+        assertThat(repo.adjust("i1", -3)).containsSame(updated);
+
+        var query = ArgumentCaptor.forClass(Query.class);
+        var update = ArgumentCaptor.forClass(Update.class);
+        verify(mongo).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Item.class));
+        assertThat(query.getValue().getQueryObject().toJson()).contains("\"availableUnits\": {\"$gte\": 3}");
+        assertThat(update.getValue().getUpdateObject().toJson()).contains("\"$inc\": {\"availableUnits\": -3}");
+    }
+
+    @Test
+    void adjust_incrementIsUnguarded() {
+        repo.adjust("i1", 5);
+
+        var query = ArgumentCaptor.forClass(Query.class);
+        verify(mongo).findAndModify(query.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Item.class));
+        assertThat(query.getValue().getQueryObject().toJson()).doesNotContain("availableUnits");
+    }
+}
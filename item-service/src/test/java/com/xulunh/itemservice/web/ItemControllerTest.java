@@ -1,30 +1,52 @@
 package com.xulunh.itemservice.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xulunh.itemservice.domain.Item;
+import com.xulunh.itemservice.domain.Money;
+import com.xulunh.itemservice.dto.InventoryReservationRequest;
+import com.xulunh.itemservice.dto.ItemBatchRequest;
 import com.xulunh.itemservice.dto.ItemDto;
+import com.xulunh.itemservice.events.ItemEvents;
 import com.xulunh.itemservice.repository.ItemRepository;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class ItemControllerTest {
 
     private final ItemRepository repo = mock(ItemRepository.class);
-    private final ItemController controller = new ItemController(repo);
+    private final ItemEvents events = mock(ItemEvents.class);
+    private final ItemController controller = new ItemController(repo, events, new ObjectMapper(), Duration.ofMinutes(30));
 
     private Item newItem(String id, String upc, String name, String price, Integer qty) {
         Item i = new Item();
         i.setId(id);
         i.setUpc(upc);
         i.setName(name);
-        i.setUnitPrice(new BigDecimal(price));
+        i.setUnitPrice(Money.of(new BigDecimal(price)));
         i.setAvailableUnits(qty);
         return i;
     }
@@ -37,6 +59,15 @@ class ItemControllerTest {
         assertThat(dto.availableUnits()).isEqualTo(10);
     }
 
+    @Test
+    void getByUpcs_returnsFoundAndMissing() {
+        when(repo.findByUpcIn(anyCollection())).thenReturn(List.of(newItem("i1","U1","N1","1.00", 1)));
+        var res = controller.getByUpcs(new ItemBatchRequest(List.of("U1", "U2", "U1")));
+        assertThat(res.items()).extracting(ItemDto::upc).containsExactly("U1");
+        assertThat(res.missing()).containsExactly("U2");
+        verify(repo, times(1)).findByUpcIn(anyCollection());
+    }
+
     @Test
     void list_mapsAll() {
         when(repo.findAll()).thenReturn(List.of(
@@ -48,21 +79,123 @@ class ItemControllerTest {
         assertThat(list.get(1).upc()).isEqualTo("U2");
     }
 
+    @Test
+    void listPage_returnsNextCursor_whenMoreRowsExist() {
+        when(repo.findPageAfter("i0", 3, List.of("upc", "name"))).thenReturn(List.of(
+                newItem("i1","U1","N1","1.00", 1),
+                newItem("i2","U2","N2","2.00", 2),
+                newItem("i3","U3","N3","3.00", 3)
+        ));
+        var page = controller.list(2, "i0", List.of("upc", "name"));
+        assertThat(page.items()).extracting(ItemDto::id).containsExactly("i1", "i2");
+        assertThat(page.next()).isEqualTo("i2");
+    }
+
+    @Test
+    void listPage_lastPageHasNoCursor_andRejectsUnknownFields() {
+        when(repo.findPageAfter(null, 11, List.of())).thenReturn(List.of(newItem("i1","U1","N1","1.00", 1)));
+        assertThat(controller.list(10, null, null).next()).isNull();
+        assertThatThrownBy(() -> controller.list(10, null, List.of("password")))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void stream_writesOneItemPerLine() throws Exception {
+        when(repo.streamAll(List.of("upc"))).thenReturn(Stream.of(
+                newItem("i1","U1","N1","1.00", 1),
+                newItem("i2","U2","N2","2.00", 2)));
+        var response = new MockHttpServletResponse();
+        controller.stream(List.of("upc"), response).getCallable().call();
+        var lines = response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(response.getContentType()).isEqualTo(ItemController.APPLICATION_NDJSON);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).contains("\"upc\":\"U2\"");
+    }
+
+    @Test
+    void stream_runsUnderTheBoundExportTimeout() {
+        when(repo.streamAll(any())).thenAnswer(inv -> Stream.of(newItem("i1","U1","N1","1.00", 1), newItem("i2","U2","N2","2.00", 2)));
+
+        new ApplicationContextRunner()
+                .withInitializer(ctx -> ctx.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withBean(ItemRepository.class, () -> repo)
+                .withBean(ItemEvents.class, () -> events)
+                .withBean(ObjectMapper.class, ObjectMapper::new)
+                .withUserConfiguration(ItemController.class)
+                .withPropertyValues("item.export.timeout=2h")
+                .run(ctx -> {
+                    var mvc = MockMvcBuilders.standaloneSetup(ctx.getBean(ItemController.class)).build();
+                    var started = mvc.perform(get("/api/v1/items").accept(ItemController.APPLICATION_NDJSON))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+                    // set by the export itself; the container default applies to every other request
+                    assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(2).toMillis());
+                    var body = mvc.perform(asyncDispatch(started))
+                            .andExpect(status().isOk())
+                            .andReturn().getResponse().getContentAsString();
+                    assertThat(body.lines()).hasSize(2);
+                });
+    }
+
     @Test
     void create_throwsWhenUpcExists() {
         when(repo.existsByUpc("U1")).thenReturn(true);
-        var dto = new ItemDto(null, "U1", "N", new BigDecimal("1.00"), List.of(), 5);
+        var dto = new ItemDto(null, "U1", "N", Money.of(new BigDecimal("1.00")), List.of(), 5);
         assertThatThrownBy(() -> controller.create(dto)).isInstanceOf(IllegalStateException.class);
         verify(repo, never()).save(any());
+        verifyNoInteractions(events);
     }
 
     @Test
-    void updateInventory_clampsToZero() {
-        when(repo.findById("i1")).thenReturn(Optional.of(newItem("i1", "U1", "N", "1.00", 1)));
-        when(repo.save(any(Item.class))).thenAnswer(inv -> inv.getArgument(0));
-        var res = controller.updateInventory("i1", -5);
-        assertThat(res.availableUnits()).isEqualTo(0);
+    void create_savesAndPublishesEvent() {
+        when(repo.existsByUpc("U9")).thenReturn(false);
+        when(repo.save(any(Item.class))).thenAnswer(inv -> {
+            Item i = inv.getArgument(0);
+            i.setId("i9");
+            return i;
+        });
+        var res = controller.create(new ItemDto(null, "U9", "N", Money.of(new BigDecimal("1.00")), List.of(), 5));
+        assertThat(res.id()).isEqualTo("i9");
+        verify(events).publishCreated("i9", "U9");
+    }
+
+    @Test
+    void updateInventory_appliesDeltaAtomically() {
+        when(repo.adjust("i1", -1)).thenReturn(Optional.of(newItem("i1", "U1", "N", "1.00", 4)));
+        var res = controller.updateInventory("i1", -1);
+        assertThat(res.availableUnits()).isEqualTo(4);
+        verify(repo, never()).save(any(Item.class));
+        verify(events).publishInventoryChanged("i1", "U1");
     }
-}
 
+    @Test
+    void updateInventory_conflict_whenDeltaWouldGoBelowZero() {
+        when(repo.adjust("i1", -5)).thenReturn(Optional.empty());
+        when(repo.existsById("i1")).thenReturn(true);
+        assertThatThrownBy(() -> controller.updateInventory("i1", -5))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode().value()).isEqualTo(409));
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void reserve_mergesDuplicateLines_andReturnsOk() {
+        when(repo.reserveAll(anyMap())).thenReturn(List.of());
+        var res = controller.reserve(new InventoryReservationRequest(List.of(
+                new InventoryReservationRequest.Line("i1", 2),
+                new InventoryReservationRequest.Line("i2", 1),
+                new InventoryReservationRequest.Line("i1", 3))));
+        assertThat(res.getStatusCode().value()).isEqualTo(200);
+        assertThat(res.getBody().reserved()).isTrue();
+        verify(repo).reserveAll(Map.of("i1", 5, "i2", 1));
+    }
 
+    @Test
+    void reserve_returnsConflict_whenStockShort() {
+        when(repo.reserveAll(anyMap())).thenReturn(List.of("i2"));
+        var res = controller.reserve(new InventoryReservationRequest(List.of(
+                new InventoryReservationRequest.Line("i2", 9))));
+        assertThat(res.getStatusCode().value()).isEqualTo(409);
+        assertThat(res.getBody().reserved()).isFalse();
+        assertThat(res.getBody().insufficient()).containsExactly("i2");
+    }
+}
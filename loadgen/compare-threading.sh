@@ -0,0 +1,15 @@
+#!/usr/bin/env bash
+# Runs the same I/O-heavy checkout load against the in-process stack with platform threads, virtual threads and
+# the reactive order-service.
+# Item-service calls are slowed down so request threads mostly wait; extra arguments override the defaults,
+# e.g. ./compare-threading.sh --rate=400 --item-latency=200ms
+set -euo pipefail
+cd "$(dirname "$0")"
+mvn -q compile
+args="--rate=200 --duration=60s --warmup=15s --item-latency=100ms --bcrypt-strength=4 $*"
+for mode in platform virtual; do
+  echo "== $mode threads"
+  mvn -q exec:java -Dexec.args="$args --threads=$mode --hgrm-dir=target/hgrm-$mode"
+done
+echo "== reactive order-service"
+mvn -q exec:java -Dexec.args="$args --order-stack=reactive --hgrm-dir=target/hgrm-reactive"
@@ -0,0 +1,75 @@
+package com.xulunh.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The test_payment_flow.sh journey as one flow: register → login → create order → pay → cancel
+public class CheckoutFlow implements OpenModelDriver.Flow {
+    public record Targets(String accountUrl, String orderUrl, String paymentUrl) {}
+
+    private static final String PASSWORD = "Passw0rd!";
+
+    private final HttpClient http;
+    private final ObjectMapper json;
+    private final Targets targets;
+    private final List<String> upcs;
+    private final int itemsPerOrder;
+    private final String runId;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public CheckoutFlow(HttpClient http, ObjectMapper json, Targets targets, List<String> upcs, int itemsPerOrder) {
+        this.http = http;
+        this.json = json;
+        this.targets = targets;
+        this.upcs = upcs;
+        this.itemsPerOrder = itemsPerOrder;
+        this.runId = Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    @Override
+    public void run(OpenModelDriver.Steps steps) throws Exception {
+        long n = sequence.incrementAndGet();
+        String email = "load-" + runId + "-" + n + "@example.com";
+
+        steps.step("register", () -> post(targets.accountUrl() + "/api/v1/accounts/register",
+                Map.of("email", email, "username", "load-" + runId + "-" + n, "password", PASSWORD), null));
+        String token = steps.step("login", () -> post(targets.accountUrl() + "/api/v1/auth/login",
+                Map.of("email", email, "password", PASSWORD), null)).get("token").asText();
+
+        var lines = new ArrayList<Map<String, Object>>(itemsPerOrder);
+        for (int i = 0; i < itemsPerOrder; i++) {
+            lines.add(Map.of("upc", upcs.get((int) ((n + i) % upcs.size())), "quantity", 1 + i % 3));
+        }
+        var order = steps.step("create-order", () -> post(targets.orderUrl() + "/api/v1/orders", Map.of("items", lines), token));
+        String orderId = order.get("id").asText();
+
+        steps.step("pay", () -> post(targets.paymentUrl() + "/api/v1/payments",
+                Map.of("orderId", orderId, "amount", order.get("totalAmount").decimalValue()), token));
+        steps.step("cancel", () -> post(targets.orderUrl() + "/api/v1/orders/" + orderId + "/cancel", null, token));
+    }
+
+    private JsonNode post(String url, Object body, String token) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body)));
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        var response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("POST " + url + " returned " + response.statusCode());
+        }
+        return response.body().length == 0 ? json.nullNode() : json.readTree(response.body());
+    }
+}
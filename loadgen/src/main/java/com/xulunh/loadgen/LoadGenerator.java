@@ -0,0 +1,132 @@
+package com.xulunh.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xulunh.loadgen.standin.InProcessStack;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+// Replays the checkout flow at a fixed arrival rate and prints per-step latency percentiles.
+//
+//   mvn -q compile exec:java -Dexec.args="--rate=20 --duration=60s"          in-process stack
+//   mvn -q compile exec:java -Dexec.args="--rate=20 --account-url=http://localhost:8081
+//       --order-url=http://localhost:8083 --payment-url=http://localhost:8084"   a running stack
+//
+// Options: --rate (flows/s), --duration, --warmup, --max-in-flight, --items-per-order, --hgrm-dir (writes
+// one HdrHistogram percentile distribution per step), and for the in-process stack --bcrypt-strength,
+// --catalog-size, --item-latency, --threads=platform|virtual (spring.threads.virtual.enabled in every service) and
+// --order-stack=servlet|reactive (order-service's reactive profile). compare-threading.sh runs the same I/O-heavy
+// load in each mode.
+public class LoadGenerator {
+    private static final List<String> STEPS = List.of("register", "login", "create-order", "pay", "cancel", OpenModelDriver.FLOW);
+
+    public static void main(String[] args) throws Exception {
+        var opts = parse(args);
+        double rate = Double.parseDouble(opts.getOrDefault("rate", "10"));
+        Duration warmup = duration(opts.getOrDefault("warmup", "10s"));
+        Duration duration = duration(opts.getOrDefault("duration", "60s"));
+        int maxInFlight = Integer.parseInt(opts.getOrDefault("max-in-flight", "2000"));
+        int itemsPerOrder = Integer.parseInt(opts.getOrDefault("items-per-order", "2"));
+
+        InProcessStack stack = null;
+        CheckoutFlow.Targets targets;
+        List<String> upcs;
+        if (opts.containsKey("order-url")) {
+            targets = new CheckoutFlow.Targets(opts.get("account-url"), opts.get("order-url"), opts.get("payment-url"));
+            upcs = List.of(opts.getOrDefault("upcs", "UPC001,UPC002").split(","));
+        } else {
+            String threads = opts.getOrDefault("threads", "platform");
+            if (!threads.equals("platform") && !threads.equals("virtual")) {
+                throw new IllegalArgumentException("--threads must be platform or virtual, got " + threads);
+            }
+            String orderStack = opts.getOrDefault("order-stack", "servlet");
+            if (!orderStack.equals("servlet") && !orderStack.equals("reactive")) {
+                throw new IllegalArgumentException("--order-stack must be servlet or reactive, got " + orderStack);
+            }
+            stack = new InProcessStack(
+                    Map.of("security.password.bcrypt-strength", opts.getOrDefault("bcrypt-strength", "10"),
+                            "spring.threads.virtual.enabled", threads.equals("virtual")),
+                    Integer.parseInt(opts.getOrDefault("catalog-size", "50")),
+                    duration(opts.getOrDefault("item-latency", "0ms")),
+                    orderStack.equals("reactive"));
+            targets = new CheckoutFlow.Targets(stack.accountUrl(), stack.orderUrl(), stack.paymentUrl());
+            upcs = stack.upcs();
+        }
+
+        try (var sampler = new ResourceSampler(Duration.ofMillis(200));
+             var http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build()) {
+            var flow = new CheckoutFlow(http, new ObjectMapper(), targets, upcs, itemsPerOrder);
+            System.out.printf("Checkout at %.1f flows/s for %s (warm-up %s) against %s%n",
+                    rate, duration, warmup, stack != null ? "the in-process stack (" + opts.getOrDefault("threads", "platform") + " threads, "
+                            + opts.getOrDefault("order-stack", "servlet") + " order-service)" : targets);
+            var result = new OpenModelDriver().run(flow, rate, warmup, duration, maxInFlight, Duration.ofSeconds(60));
+            report(result, System.out);
+            if (stack != null) System.out.println(sampler.summary());
+            if (opts.containsKey("hgrm-dir")) writeHistograms(result, Path.of(opts.get("hgrm-dir")));
+        } finally {
+            if (stack != null) stack.close();
+        }
+    }
+
+    static void report(OpenModelDriver.Result result, PrintStream out) {
+        out.printf("%-13s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "step", "count", "errors", "mean ms", "p50", "p90", "p99", "p99.9", "max");
+        for (String step : STEPS) {
+            var stats = result.steps().get(step);
+            if (stats == null) continue;
+            var h = stats.histogram();
+            out.printf("%-13s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", step, h.getTotalCount(), stats.errors().sum(),
+                    h.getMean() / 1e6, ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+        }
+        var flows = result.steps().get(OpenModelDriver.FLOW);
+        long completed = flows == null ? 0 : flows.histogram().getTotalCount();
+        out.printf("completed %.1f flows/s, dropped %d arrivals (max in-flight reached)%n",
+                completed / (double) result.measured().toSeconds(), result.dropped());
+    }
+
+    private static void writeHistograms(OpenModelDriver.Result result, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        for (var e : result.steps().entrySet()) {
+            try (var out = new PrintStream(Files.newOutputStream(dir.resolve(e.getKey() + ".hgrm")))) {
+                e.getValue().histogram().outputPercentileDistribution(out, 1e6); // values in ms
+            }
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        var opts = new HashMap<String, String>();
+        var unknown = new ArrayList<String>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                unknown.add(arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        if (!unknown.isEmpty()) throw new IllegalArgumentException("Expected --name=value, got " + unknown);
+        return opts;
+    }
+}
@@ -0,0 +1,105 @@
+package com.xulunh.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load: flows start on a fixed arrival schedule whether or not earlier flows have finished, each
+// on its own virtual thread. Latency is measured from the flow's intended start, not from when the driver got
+// round to it, so a stall in the system under test shows up in the percentiles instead of silently lowering
+// the arrival rate (coordinated omission).
+public class OpenModelDriver {
+    public interface Flow {
+        void run(Steps steps) throws Exception;
+    }
+
+    public static final String FLOW = "checkout";
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<String, StepStats> stats = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public record StepStats(Histogram histogram, LongAdder errors) {
+        StepStats() { this(new ConcurrentHistogram(MAX_LATENCY_NANOS, 3), new LongAdder()); }
+    }
+
+    public record Result(Map<String, StepStats> steps, long dropped, Duration measured) {}
+
+    // Times the steps of one flow; only flows that arrive after the warm-up are recorded
+    public final class Steps {
+        private final boolean record;
+        private long stepStart;
+
+        private Steps(long intendedStart, boolean record) {
+            this.stepStart = intendedStart;
+            this.record = record;
+        }
+
+        public <T> T step(String name, Callable<T> call) throws Exception {
+            try {
+                T result = call.call();
+                long end = System.nanoTime();
+                if (record) stats(name).histogram().recordValue(Math.min(end - stepStart, MAX_LATENCY_NANOS));
+                stepStart = end;
+                return result;
+            } catch (Exception e) {
+                if (record) stats(name).errors().increment();
+                throw e;
+            }
+        }
+    }
+
+    public Result run(Flow flow, double arrivalsPerSecond, Duration warmup, Duration duration,
+                      int maxInFlight, Duration drainTimeout) throws InterruptedException {
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / arrivalsPerSecond);
+        var inFlight = new Semaphore(maxInFlight);
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long end = recordFrom + duration.toNanos();
+
+        try (ExecutorService flows = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + i * period;
+                if (intended >= end) break;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+
+                boolean record = intended >= recordFrom;
+                if (!inFlight.tryAcquire()) {
+                    // the system is so far behind that another concurrent flow would only measure the generator
+                    if (record) dropped.increment();
+                    continue;
+                }
+                flows.submit(() -> {
+                    var steps = new Steps(intended, record);
+                    try {
+                        flow.run(steps);
+                        if (record) stats(FLOW).histogram().recordValue(Math.min(System.nanoTime() - intended, MAX_LATENCY_NANOS));
+                    } catch (Exception e) {
+                        if (record) stats(FLOW).errors().increment();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            flows.shutdown();
+            if (!flows.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) flows.shutdownNow();
+        }
+        return new Result(Map.copyOf(stats), dropped.sum(), duration);
+    }
+
+    private StepStats stats(String step) {
+        return stats.computeIfAbsent(step, s -> new StepStats());
+    }
+}
@@ -0,0 +1,52 @@
+package com.xulunh.loadgen;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Samples this JVM while a run is in progress, for comparing platform and virtual thread modes of the in-process
+// stack. Peak RSS (VmHWM) includes platform thread stacks, which the heap figures do not.
+public class ResourceSampler implements AutoCloseable {
+    private final AtomicLong peakHeap = new AtomicLong();
+    private final Thread sampler;
+
+    public ResourceSampler(Duration interval) {
+        var memory = ManagementFactory.getMemoryMXBean();
+        sampler = Thread.ofPlatform().daemon().name("resource-sampler").start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(interval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    public String summary() {
+        var threads = ManagementFactory.getThreadMXBean();
+        long rss = peakRssKb();
+        return String.format("peak heap used %d MiB, peak platform threads %d, peak RSS %s",
+                peakHeap.get() >> 20, threads.getPeakThreadCount(), rss < 0 ? "n/a" : (rss >> 10) + " MiB");
+    }
+
+    private static long peakRssKb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        } catch (IOException | RuntimeException e) {
+            // not Linux
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() {
+        sampler.interrupt();
+    }
+}
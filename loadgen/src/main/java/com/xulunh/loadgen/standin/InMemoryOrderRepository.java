@@ -0,0 +1,179 @@
+package com.xulunh.loadgen.standin;
+
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
+import com.xulunh.orderservice.repository.OrderRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Cassandra stand-in: the orders table and its orders_by_account view held in memory. Keyset-paged reads
+// are not part of the checkout flow and are left unsupported. Reads hand out copies, as rows read from Cassandra
+// would be, so the conditional updates compare against what was stored rather than the caller's edits.
+public class InMemoryOrderRepository implements OrderRepository {
+    private static final Comparator<OrderByAccount> NEWEST_FIRST =
+            Comparator.comparing(OrderByAccount::getCreatedAt).thenComparing(OrderByAccount::getOrderId).reversed();
+
+    private final Map<UUID, Order> orders = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Order> findOrderById(UUID id) {
+        return Optional.ofNullable(orders.get(id)).map(InMemoryOrderRepository::copy);
+    }
+
+    @Override
+    public Order saveWithAccountIndex(Order order) {
+        orders.put(order.getId(), copy(order));
+        return order;
+    }
+
+    @Override
+    public boolean updateStatus(Order order, String expectedStatus) {
+        return update(order, expectedStatus, false);
+    }
+
+    @Override
+    public boolean updateItems(Order order, String expectedStatus) {
+        return update(order, expectedStatus, true);
+    }
+
+    private boolean update(Order order, String expectedStatus, boolean items) {
+        var applied = new boolean[1];
+        orders.computeIfPresent(order.getId(), (id, stored) -> {
+            if (!expectedStatus.equals(stored.getStatus())) return stored;
+            var next = copy(stored);
+            if (items) {
+                next.setItems(order.getItems());
+                next.setTotalAmount(order.getTotalAmount());
+            } else {
+                next.setStatus(order.getStatus());
+            }
+            next.setUpdatedAt(order.getUpdatedAt());
+            applied[0] = true;
+            return next;
+        });
+        return applied[0];
+    }
+
+    private static Order copy(Order order) {
+        var copy = new Order();
+        copy.setId(order.getId());
+        copy.setAccountEmail(order.getAccountEmail());
+        copy.setStatus(order.getStatus());
+        copy.setTotalAmount(order.getTotalAmount());
+        copy.setItems(order.getItems());
+        copy.setCreatedAt(order.getCreatedAt());
+        copy.setUpdatedAt(order.getUpdatedAt());
+        return copy;
+    }
+
+    @Override
+    public List<OrderByAccount> findByAccountEmail(String accountEmail) {
+        return streamByAccountEmail(accountEmail).toList();
+    }
+
+    @Override
+    public Slice<OrderByAccount> findByAccountEmail(String accountEmail, Pageable pageable) {
+        throw new UnsupportedOperationException("paged reads are not simulated");
+    }
+
+    @Override
+    public Stream<Order> streamAll() {
+        return orders.values().stream().map(InMemoryOrderRepository::copy);
+    }
+
+    @Override
+    public Stream<OrderByAccount> streamByAccountEmail(String accountEmail) {
+        return orders.values().stream()
+                .filter(o -> accountEmail.equals(o.getAccountEmail()))
+                .map(OrderByAccount::of)
+                .sorted(NEWEST_FIRST);
+    }
+
+    @Override
+    public <S extends Order> S insert(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends Order> List<S> insert(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public <S extends Order> S save(S entity) {
+        orders.put(entity.getId(), copy(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends Order> List<S> saveAll(Iterable<S> entities) {
+        var saved = new ArrayList<S>();
+        entities.forEach(e -> saved.add(save(e)));
+        return saved;
+    }
+
+    @Override
+    public Optional<Order> findById(UUID id) {
+        return findOrderById(id);
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return orders.containsKey(id);
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return orders.values().stream().map(InMemoryOrderRepository::copy).toList();
+    }
+
+    @Override
+    public List<Order> findAllById(Iterable<UUID> ids) {
+        return StreamSupport.stream(ids.spliterator(), false).map(orders::get).filter(o -> o != null).map(InMemoryOrderRepository::copy).toList();
+    }
+
+    @Override
+    public Slice<Order> findAll(Pageable pageable) {
+        throw new UnsupportedOperationException("paged reads are not simulated");
+    }
+
+    @Override
+    public long count() {
+        return orders.size();
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        orders.remove(id);
+    }
+
+    @Override
+    public void delete(Order entity) {
+        orders.remove(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends UUID> ids) {
+        ids.forEach(orders::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Order> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        orders.clear();
+    }
+}
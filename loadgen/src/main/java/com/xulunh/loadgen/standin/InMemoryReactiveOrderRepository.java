@@ -0,0 +1,157 @@
+package com.xulunh.loadgen.standin;
+
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
+import com.xulunh.orderservice.repository.ReactiveOrderRepository;
+import org.reactivestreams.Publisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+// Reactive view of an InMemoryOrderRepository, so the reactive controller and the blocking Kafka listeners of the
+// order-service reactive profile see the same orders.
+public class InMemoryReactiveOrderRepository implements ReactiveOrderRepository {
+    private final InMemoryOrderRepository orders;
+
+    public InMemoryReactiveOrderRepository(InMemoryOrderRepository orders) {
+        this.orders = orders;
+    }
+
+    @Override
+    public Mono<Order> saveWithAccountIndex(Order order) {
+        return Mono.fromSupplier(() -> orders.saveWithAccountIndex(order));
+    }
+
+    @Override
+    public Mono<Boolean> updateStatus(Order order, String expectedStatus) {
+        return Mono.fromSupplier(() -> orders.updateStatus(order, expectedStatus));
+    }
+
+    @Override
+    public Mono<Boolean> updateItems(Order order, String expectedStatus) {
+        return Mono.fromSupplier(() -> orders.updateItems(order, expectedStatus));
+    }
+
+    @Override
+    public Mono<Slice<Order>> findSlice(Pageable pageable) {
+        return Mono.error(new UnsupportedOperationException("paged reads are not simulated"));
+    }
+
+    @Override
+    public Flux<OrderByAccount> findByAccountEmail(String accountEmail) {
+        return Flux.defer(() -> Flux.fromIterable(orders.findByAccountEmail(accountEmail)));
+    }
+
+    @Override
+    public Mono<Slice<OrderByAccount>> findByAccountEmail(String accountEmail, Pageable pageable) {
+        return Mono.error(new UnsupportedOperationException("paged reads are not simulated"));
+    }
+
+    @Override
+    public <S extends Order> Mono<S> insert(S entity) {
+        return Mono.fromSupplier(() -> orders.insert(entity));
+    }
+
+    @Override
+    public <S extends Order> Flux<S> insert(Iterable<S> entities) {
+        return Flux.fromIterable(entities).flatMap(this::insert);
+    }
+
+    @Override
+    public <S extends Order> Flux<S> insert(Publisher<S> entities) {
+        return Flux.from(entities).flatMap(this::insert);
+    }
+
+    @Override
+    public <S extends Order> Mono<S> save(S entity) {
+        return Mono.fromSupplier(() -> orders.save(entity));
+    }
+
+    @Override
+    public <S extends Order> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).flatMap(this::save);
+    }
+
+    @Override
+    public <S extends Order> Flux<S> saveAll(Publisher<S> entities) {
+        return Flux.from(entities).flatMap(this::save);
+    }
+
+    @Override
+    public Mono<Order> findById(UUID id) {
+        return Mono.defer(() -> Mono.justOrEmpty(orders.findById(id)));
+    }
+
+    @Override
+    public Mono<Order> findById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(UUID id) {
+        return Mono.fromSupplier(() -> orders.existsById(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<Order> findAll() {
+        return Flux.defer(() -> Flux.fromIterable(orders.findAll()));
+    }
+
+    @Override
+    public Flux<Order> findAllById(Iterable<UUID> ids) {
+        return Flux.defer(() -> Flux.fromIterable(orders.findAllById(ids)));
+    }
+
+    @Override
+    public Flux<Order> findAllById(Publisher<UUID> ids) {
+        return Flux.from(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(orders::count);
+    }
+
+    @Override
+    public Mono<Void> deleteById(UUID id) {
+        return Mono.fromRunnable(() -> orders.deleteById(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(Order entity) {
+        return Mono.fromRunnable(() -> orders.delete(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends UUID> ids) {
+        return Mono.fromRunnable(() -> orders.deleteAllById(ids));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends Order> entities) {
+        return Mono.fromRunnable(() -> orders.deleteAll(entities));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends Order> entities) {
+        return Flux.from(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(orders::deleteAll);
+    }
+}
@@ -0,0 +1,133 @@
+package com.xulunh.loadgen.standin;
+
+import com.xulunh.accountservice.AccountServiceApplication;
+import com.xulunh.orderservice.OrderServiceApplication;
+import com.xulunh.orderservice.repository.ReactiveOrderRepository;
+import com.xulunh.paymentservice.PaymentServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// account-, order- and payment-service started in this JVM, each in its own Spring context on a random port,
+// with H2 (MySQL mode) for MySQL, an embedded KRaft broker for Kafka, an in-memory repository for Cassandra
+// and ItemServiceStandIn for item-service/Mongo.
+public class InProcessStack implements AutoCloseable {
+    private static final String CASSANDRA = String.join(",",
+            "org.springframework.boot.autoconfigure.cassandra.CassandraAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.cassandra.CassandraDataAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.cassandra.CassandraReactiveDataAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.cassandra.CassandraRepositoriesAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.cassandra.CassandraReactiveRepositoriesAutoConfiguration");
+    private static final String JDBC = String.join(",",
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration",
+            "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration");
+
+    private final EmbeddedKafkaKraftBroker kafka;
+    private final ItemServiceStandIn items;
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final String accountUrl;
+    private final String orderUrl;
+    private final String paymentUrl;
+
+    // overrides are applied to every service context (e.g. security.password.bcrypt-strength); reactiveOrders
+    // starts order-service with its reactive profile on WebFlux
+    public InProcessStack(Map<String, Object> overrides, int catalogSize, Duration itemLatency, boolean reactiveOrders) throws Exception {
+        kafka = new EmbeddedKafkaKraftBroker(1, 3, "payment.events", "order.events", "item.events");
+        kafka.afterPropertiesSet();
+        items = new ItemServiceStandIn(catalogSize, itemLatency);
+        try {
+            accountUrl = start(new SpringApplicationBuilder(AccountServiceApplication.class), Map.of(
+                    "spring.autoconfigure.exclude", CASSANDRA,
+                    "spring.datasource.url", "jdbc:h2:mem:accountdb;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "spring.jpa.hibernate.ddl-auto", "create-drop"), overrides);
+            var orderApp = new SpringApplicationBuilder(OrderServiceApplication.class, CassandraStandIn.class);
+            if (reactiveOrders) orderApp.profiles("reactive").web(WebApplicationType.REACTIVE);
+            orderUrl = start(orderApp, Map.of(
+                    "spring.autoconfigure.exclude", CASSANDRA + "," + JDBC,
+                    "item.service.base-url", items.baseUrl(),
+                    "spring.kafka.producer.value-serializer", "com.xulunh.orderservice.events.EventSerializer",
+                    "spring.kafka.producer.properties.event.format", "binary",
+                    "spring.kafka.consumer.value-deserializer", "com.xulunh.orderservice.events.EventDeserializer",
+                    "spring.kafka.consumer.properties.spring.json.value.default.type",
+                    "com.xulunh.orderservice.events.PaymentEventsListener$PaymentEvent"), overrides);
+            paymentUrl = start(new SpringApplicationBuilder(PaymentServiceApplication.class), Map.of(
+                    "spring.autoconfigure.exclude", CASSANDRA,
+                    "spring.datasource.url", "jdbc:h2:mem:paymentdb;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "spring.jpa.hibernate.ddl-auto", "create-drop",
+                    "order.service.base-url", orderUrl,
+                    "spring.kafka.producer.properties.event.format", "binary",
+                    "spring.kafka.consumer.value-deserializer", "com.xulunh.paymentservice.events.EventDeserializer",
+                    "spring.kafka.consumer.properties.spring.json.value.default.type",
+                    "com.xulunh.paymentservice.events.OrderEventsListener$OrderEvent"), overrides);
+        } catch (Exception e) {
+            close();
+            throw e;
+        }
+    }
+
+    private String start(SpringApplicationBuilder app, Map<String, Object> service, Map<String, Object> overrides) {
+        var props = new HashMap<String, Object>();
+        // no application.properties is on this classpath; everything the services need is set here
+        props.put("spring.config.name", "loadgen-none");
+        props.put("spring.main.banner-mode", "off");
+        props.put("server.port", 0);
+        props.put("logging.level.root", "WARN");
+        props.put("springdoc.api-docs.enabled", false);
+        props.put("spring.jpa.open-in-view", false);
+        props.put("security.jwt.secret", "change-me-32-chars-minimum-1234567890abcd");
+        props.put("spring.kafka.bootstrap-servers", kafka.getBrokersAsString());
+        props.put("spring.kafka.producer.key-serializer", "org.apache.kafka.common.serialization.StringSerializer");
+        props.put("spring.kafka.producer.value-serializer", "org.springframework.kafka.support.serializer.JsonSerializer");
+        props.put("spring.kafka.consumer.key-deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        props.put("spring.kafka.consumer.value-deserializer", "org.springframework.kafka.support.serializer.JsonDeserializer");
+        props.put("spring.kafka.consumer.properties.spring.json.trusted.packages", "*");
+        props.put("spring.kafka.consumer.properties.spring.json.use.type.headers", false);
+        props.put("spring.kafka.consumer.auto-offset-reset", "earliest");
+        // JFR pinning events are JVM-wide; each service keeps only those that pass through its own code
+        props.put("diagnostics.pinning.own-frames-only", true);
+        props.putAll(service);
+        props.putAll(overrides);
+        var context = app.properties(props).run();
+        contexts.add(context);
+        return "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    public String accountUrl() { return accountUrl; }
+
+    public String orderUrl() { return orderUrl; }
+
+    public String paymentUrl() { return paymentUrl; }
+
+    public List<String> upcs() { return items.upcs(); }
+
+    @Override
+    public void close() {
+        for (int i = contexts.size() - 1; i >= 0; i--) contexts.get(i).close();
+        items.close();
+        kafka.destroy();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class CassandraStandIn {
+        @Bean
+        InMemoryOrderRepository orderRepository() {
+            return new InMemoryOrderRepository();
+        }
+
+        // used by the reactive profile; shares the rows with the blocking repository
+        @Bean
+        ReactiveOrderRepository reactiveOrderRepository(InMemoryOrderRepository orders) {
+            return new InMemoryReactiveOrderRepository(orders);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.xulunh.loadgen.standin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+// item-service (and the Mongo behind it) reduced to the endpoints order-service calls during checkout:
+// a fixed catalog with unlimited stock and an optional per-call delay.
+public class ItemServiceStandIn implements AutoCloseable {
+    private final HttpServer server;
+    private final ObjectMapper json = new ObjectMapper();
+    private final Map<String, Map<String, Object>> catalog = new LinkedHashMap<>();
+    private final Duration latency;
+
+    public ItemServiceStandIn(int catalogSize, Duration latency) throws IOException {
+        this.latency = latency;
+        for (int i = 1; i <= catalogSize; i++) {
+            String upc = String.format("UPC%03d", i);
+            catalog.put(upc, Map.of(
+                    "id", "item-" + i,
+                    "upc", upc,
+                    "name", "Load item " + i,
+                    "unitPrice", BigDecimal.valueOf(500 + i * 125L, 2),
+                    "pictureUrls", List.of(),
+                    "availableUnits", Integer.MAX_VALUE));
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/v1/items/by-upcs", this::byUpcs);
+        server.createContext("/api/v1/items/by-upc", this::byUpc);
+        server.createContext("/api/v1/items/inventory/reservations",
+                ex -> respond(ex, 200, Map.of("reserved", true, "insufficient", List.of())));
+        server.createContext("/api/v1/items/inventory/releases", ex -> respond(ex, 204, null));
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public List<String> upcs() {
+        return List.copyOf(catalog.keySet());
+    }
+
+    private void byUpcs(HttpExchange ex) throws IOException {
+        var upcs = json.readTree(ex.getRequestBody()).get("upcs");
+        var items = new ArrayList<Map<String, Object>>();
+        var missing = new ArrayList<String>();
+        upcs.forEach(node -> {
+            var item = catalog.get(node.asText());
+            if (item != null) items.add(item);
+            else missing.add(node.asText());
+        });
+        respond(ex, 200, Map.of("items", items, "missing", missing));
+    }
+
+    private void byUpc(HttpExchange ex) throws IOException {
+        String query = ex.getRequestURI().getQuery();
+        var item = query == null ? null : catalog.get(query.replace("upc=", ""));
+        respond(ex, item == null ? 404 : 200, item);
+    }
+
+    private void respond(HttpExchange ex, int status, Object body) throws IOException {
+        try (ex) {
+            if (!latency.isZero()) Thread.sleep(latency);
+            if (body == null) {
+                ex.sendResponseHeaders(status, -1);
+                return;
+            }
+            byte[] bytes = json.writeValueAsBytes(body);
+            ex.getResponseHeaders().set("Content-Type", "application/json");
+            ex.sendResponseHeaders(status, bytes.length);
+            ex.getResponseBody().write(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.xulunh.orderservice.config;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.xulunh.orderservice.domain.Money;
+import org.springframework.boot.autoconfigure.cassandra.DriverConfigLoaderBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.cassandra.core.convert.CassandraCustomConversions;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Money keeps the decimal columns and order_item field the BigDecimal amounts always had, so no table or UDT
+// changes type. Those have no currency, so only DEFAULT_CURRENCY amounts are written.
+@Configuration
+public class CassandraConfig {
+    @Bean
+    CassandraCustomConversions cassandraCustomConversions() {
+        return new CassandraCustomConversions(List.of(new MoneyToDecimal(), new DecimalToMoney()));
+    }
+
+    // Write timestamps come from the coordinator rather than this JVM's clock, so a write from an instance whose clock
+    // lags the one that inserted the row is not discarded as older (see OrderWrites)
+    @Bean
+    DriverConfigLoaderBuilderCustomizer serverSideTimestamps() {
+        return builder -> builder.withString(DefaultDriverOption.TIMESTAMP_GENERATOR_CLASS, "ServerSideTimestampGenerator");
+    }
+
+    @WritingConverter
+    static class MoneyToDecimal implements Converter<Money, BigDecimal> {
+        @Override
+        public BigDecimal convert(Money money) {
+            if (!Money.DEFAULT_CURRENCY.equals(money.currency())) {
+                throw new IllegalStateException("Only " + Money.DEFAULT_CURRENCY + " amounts can be stored, got " + money);
+            }
+            return money.toBigDecimal();
+        }
+    }
+
+    @ReadingConverter
+    static class DecimalToMoney implements Converter<BigDecimal, Money> {
+        @Override
+        public Money convert(BigDecimal amount) {
+            return Money.of(amount);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.xulunh.orderservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+// Listener processing time (spring.kafka.listener) and offset lag (kafka.consumer.fetch.manager.records.lag.max)
+// come from Spring Kafka and the consumer client; this adds how long a record waited between produce and hand-off.
+@Configuration
+public class KafkaListenerMetricsConfig {
+    @Bean
+    RecordInterceptor<Object, Object> recordAgeInterceptor(MeterRegistry registry) {
+        return (record, consumer) -> {
+            recordAge(registry, record);
+            return record;
+        };
+    }
+
+    @Bean
+    BatchInterceptor<Object, Object> batchRecordAgeInterceptor(MeterRegistry registry) {
+        return (records, consumer) -> {
+            records.forEach(record -> recordAge(registry, record));
+            return records;
+        };
+    }
+
+    static void recordAge(MeterRegistry registry, ConsumerRecord<?, ?> record) {
+        if (record.timestamp() < 0) return;
+        Timer.builder("kafka.listener.record.age")
+                .tag("topic", record.topic())
+                .register(registry)
+                .record(Math.max(0, System.currentTimeMillis() - record.timestamp()), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,34 @@
+package com.xulunh.orderservice.config;
+
+import com.xulunh.orderservice.security.JwtAuthWebFilter;
+import com.xulunh.orderservice.security.JwtTokenService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+    @Bean
+    SecurityWebFilterChain reactiveFilterChain(ServerHttpSecurity http, JwtTokenService tokenService) {
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .authorizeExchange(auth -> auth
+                        .pathMatchers("/api/v1/accounts/register","/actuator/health","/actuator/prometheus","/swagger-ui/**","/v3/api-docs/**","/error").permitAll()
+                        .anyExchange().authenticated()
+                )
+                .addFilterAt(new JwtAuthWebFilter(tokenService), SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.xulunh.orderservice.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+@Profile("reactive")
+public class WebClientConfig {
+    // Non-blocking client for item-service, pooled and timed out like the RestTemplate one; waiting for a
+    // connection parks the request, not a thread. Built from Boot's builder so http.client.requests is recorded.
+    @Bean
+    WebClient itemServiceWebClient(WebClient.Builder builder,
+                                   @Value("${item.service.base-url}") String baseUrl,
+                                   @Value("${http.client.max-per-route:50}") int maxConnections,
+                                   @Value("${http.client.connect-timeout:1s}") Duration connectTimeout,
+                                   @Value("${http.client.read-timeout:5s}") Duration readTimeout,
+                                   @Value("${http.client.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+                                   @Value("${http.client.idle-timeout:30s}") Duration idleTimeout) {
+        var pool = ConnectionProvider.builder("item-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(connectionRequestTimeout)
+                .maxIdleTime(idleTimeout)
+                .metrics(true)
+                .build();
+        var http = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return builder.baseUrl(baseUrl).clientConnector(new ReactorClientHttpConnector(http)).build();
+    }
+}
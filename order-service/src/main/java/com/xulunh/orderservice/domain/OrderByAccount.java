@@ -0,0 +1,56 @@
+package com.xulunh.orderservice.domain;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.cassandra.core.cql.Ordering;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.CassandraType;
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Query table for "my orders": one partition per account, newest order first.
+// Created in the same logged batch as the orders row it mirrors; later status and item changes follow the orders
+// row's conditional updates (see OrderWrites).
+@Setter
+@Getter
+@Table("orders_by_account")
+public class OrderByAccount {
+    @PrimaryKeyColumn(name = "account_email", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private String accountEmail;
+
+    @PrimaryKeyColumn(name = "created_at", ordinal = 1, type = PrimaryKeyType.CLUSTERED, ordering = Ordering.DESCENDING)
+    private Instant createdAt;
+
+    @PrimaryKeyColumn(name = "order_id", ordinal = 2, type = PrimaryKeyType.CLUSTERED, ordering = Ordering.DESCENDING)
+    private UUID orderId;
+
+    @Column("status")
+    private String status;
+
+    @Column("total_amount")
+    private Money totalAmount;
+
+    @Column("items")
+    @CassandraType(type = CassandraType.Name.LIST, typeArguments = CassandraType.Name.UDT, userTypeName = "order_item")
+    private List<OrderItem> items;
+
+    @Column("updated_at")
+    private Instant updatedAt;
+
+    public static OrderByAccount of(Order order) {
+        var row = new OrderByAccount();
+        row.setAccountEmail(order.getAccountEmail());
+        row.setCreatedAt(order.getCreatedAt());
+        row.setOrderId(order.getId());
+        row.setStatus(order.getStatus());
+        row.setTotalAmount(order.getTotalAmount());
+        row.setItems(order.getItems());
+        row.setUpdatedAt(order.getUpdatedAt());
+        return row;
+    }
+}
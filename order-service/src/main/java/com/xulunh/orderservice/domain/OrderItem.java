@@ -1,19 +1,20 @@
 package com.xulunh.orderservice.domain;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.cassandra.core.mapping.UserDefinedType;
 
-import java.math.BigDecimal;
 
 @Getter
 @Setter
+@EqualsAndHashCode
 @UserDefinedType("order_item")
 public class OrderItem {
     private String itemId;
     private String upc;
     private String name;
-    private BigDecimal unitPrice;
+    private Money unitPrice;
     private int quantity;
 
 }
@@ -0,0 +1,10 @@
+package com.xulunh.orderservice.dto;
+
+import java.util.List;
+
+// pagingState is the opaque Cassandra paging token for the next page; null on the last page
+public record OrderPage(
+        List<OrderResponse> items,
+        String pagingState
+) {
+}
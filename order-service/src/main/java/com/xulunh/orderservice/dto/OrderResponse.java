@@ -1,6 +1,7 @@
 package com.xulunh.orderservice.dto;
 
-import java.math.BigDecimal;
+import com.xulunh.orderservice.domain.Money;
+
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
@@ -9,10 +10,10 @@ public record OrderResponse(
         UUID id,
         String accountEmail,
         String status,
-        BigDecimal totalAmount,
+        Money totalAmount,
         List<Item> items,
         Instant createdAt,
         Instant updatedAt
 ) {
-    public record Item(String itemId, String upc, String name, BigDecimal unitPrice, int quantity) {}
+    public record Item(String itemId, String upc, String name, Money unitPrice, int quantity) {}
 }
@@ -0,0 +1,116 @@
+package com.xulunh.orderservice.events;
+
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.events.OrderEvents.OrderEvent;
+import com.xulunh.orderservice.events.PaymentEventsListener.PaymentEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.UUID;
+
+// Binary layout of order.events and payment.events, kept byte for byte in step with payment-service's EventCodec.
+// The event-format header names the layout and its version; records without it are JSON. Version 1, big-endian:
+//   OrderEvent   flags, type, orderId, accountEmail, status, totalAmount, updatedAt
+//   PaymentEvent flags, type, orderId, paymentId, amount, occurredAt
+// Strings are a 2-byte length and UTF-8 (length -1 for null), UUIDs 16 bytes, amounts 8-byte minor units and the
+// 3-letter currency code, timestamps 8-byte epoch micros. Fixed-width fields are always written; the flags byte says
+// which of them are present. Readers ignore trailing bytes, so a field appended later does not need a new version.
+final class EventCodec {
+    static final String HEADER = "event-format";
+    static final String ORDER_EVENT_V1 = "order-event-v1";
+    static final String PAYMENT_EVENT_V1 = "payment-event-v1";
+
+    private static final int HAS_ORDER_ID = 1, HAS_SECOND_ID = 2, HAS_AMOUNT = 4, HAS_TIME = 8;
+    private static final int UUID_BYTES = 16, MONEY_BYTES = 11, TIME_BYTES = 8;
+
+    private EventCodec() {}
+
+    static byte[] encode(OrderEvent evt) {
+        byte[] type = utf8(evt.type()), email = utf8(evt.accountEmail()), status = utf8(evt.status());
+        var buf = ByteBuffer.allocate(1 + size(type) + UUID_BYTES + size(email) + size(status) + MONEY_BYTES + TIME_BYTES);
+        buf.put((byte) flags(evt.orderId(), null, evt.totalAmount(), evt.updatedAt()));
+        putString(buf, type);
+        putUuid(buf, evt.orderId());
+        putString(buf, email);
+        putString(buf, status);
+        putMoney(buf, evt.totalAmount());
+        putMicros(buf, evt.updatedAt());
+        return buf.array();
+    }
+
+    static PaymentEvent decodePaymentEvent(byte[] data) {
+        var buf = ByteBuffer.wrap(data);
+        int flags = buf.get();
+        var type = getString(buf);
+        var orderId = getUuid(buf, flags, HAS_ORDER_ID);
+        var paymentId = getUuid(buf, flags, HAS_SECOND_ID);
+        var amount = getMoney(buf, flags);
+        var occurredAt = getMicros(buf, flags);
+        return new PaymentEvent(type, orderId, paymentId, amount, occurredAt);
+    }
+
+    private static int flags(UUID id, UUID secondId, Money amount, Instant time) {
+        return (id != null ? HAS_ORDER_ID : 0) | (secondId != null ? HAS_SECOND_ID : 0)
+                | (amount != null ? HAS_AMOUNT : 0) | (time != null ? HAS_TIME : 0);
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] s) {
+        return 2 + (s == null ? 0 : s.length);
+    }
+
+    private static void putString(ByteBuffer buf, byte[] s) {
+        if (s == null) {
+            buf.putShort((short) -1);
+            return;
+        }
+        if (s.length > Short.MAX_VALUE) throw new IllegalArgumentException("String field longer than " + Short.MAX_VALUE + " bytes");
+        buf.putShort((short) s.length).put(s);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int n = buf.getShort();
+        if (n < 0) return null;
+        var s = new String(buf.array(), buf.position(), n, StandardCharsets.UTF_8);
+        buf.position(buf.position() + n);
+        return s;
+    }
+
+    private static void putUuid(ByteBuffer buf, UUID id) {
+        buf.putLong(id == null ? 0 : id.getMostSignificantBits()).putLong(id == null ? 0 : id.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buf, int flags, int flag) {
+        long msb = buf.getLong(), lsb = buf.getLong();
+        return (flags & flag) != 0 ? new UUID(msb, lsb) : null;
+    }
+
+    private static void putMoney(ByteBuffer buf, Money amount) {
+        buf.putLong(amount == null ? 0 : amount.units());
+        var code = amount == null ? "\0\0\0" : amount.currency().getCurrencyCode();
+        for (int i = 0; i < 3; i++) buf.put((byte) code.charAt(i));
+    }
+
+    private static Money getMoney(ByteBuffer buf, int flags) {
+        long units = buf.getLong();
+        var code = new String(buf.array(), buf.position(), 3, StandardCharsets.US_ASCII);
+        buf.position(buf.position() + 3);
+        return (flags & HAS_AMOUNT) != 0 ? new Money(units, Currency.getInstance(code)) : null;
+    }
+
+    // Sub-microsecond digits are dropped
+    private static void putMicros(ByteBuffer buf, Instant time) {
+        buf.putLong(time == null ? 0 : Math.addExact(Math.multiplyExact(time.getEpochSecond(), 1_000_000L), time.getNano() / 1_000));
+    }
+
+    private static Instant getMicros(ByteBuffer buf, int flags) {
+        long micros = buf.getLong();
+        if ((flags & HAS_TIME) == 0) return null;
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
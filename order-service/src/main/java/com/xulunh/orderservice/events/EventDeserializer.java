@@ -0,0 +1,47 @@
+package com.xulunh.orderservice.events;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Consumer value deserializer: records carrying the event-format header are decoded by EventCodec, the rest by
+// JsonDeserializer (configured through the usual spring.json.* properties), so both formats can share a topic.
+public class EventDeserializer implements Deserializer<Object> {
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        var format = headers == null ? null : headers.lastHeader(EventCodec.HEADER);
+        if (format == null) return json.deserialize(topic, headers, data);
+        if (data == null) return null;
+
+        var name = new String(format.value(), StandardCharsets.US_ASCII);
+        if (!EventCodec.PAYMENT_EVENT_V1.equals(name)) {
+            throw new SerializationException("Unsupported " + EventCodec.HEADER + " " + name + " on " + topic);
+        }
+        try {
+            return EventCodec.decodePaymentEvent(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Malformed " + name + " record on " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,45 @@
+package com.xulunh.orderservice.events;
+
+import com.xulunh.orderservice.events.OrderEvents.OrderEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Producer value serializer. With event.format=binary, OrderEvents are written in EventCodec's layout and marked with
+// the event-format header; anything else, and every event while event.format=json, goes through JsonSerializer.
+public class EventSerializer implements Serializer<Object> {
+    public static final String FORMAT_CONFIG = "event.format";
+
+    private static final byte[] ORDER_EVENT_V1 = EventCodec.ORDER_EVENT_V1.getBytes(StandardCharsets.US_ASCII);
+
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+    private boolean binary;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        binary = "binary".equals(String.valueOf(configs.get(FORMAT_CONFIG)));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (binary && headers != null && data instanceof OrderEvent evt) {
+            headers.add(EventCodec.HEADER, ORDER_EVENT_V1);
+            return EventCodec.encode(evt);
+        }
+        return json.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
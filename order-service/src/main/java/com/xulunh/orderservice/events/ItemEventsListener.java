@@ -0,0 +1,23 @@
+package com.xulunh.orderservice.events;
+
+import com.xulunh.orderservice.service.ItemNearCache;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ItemEventsListener {
+    private final ItemNearCache itemCache;
+
+    public ItemEventsListener(ItemNearCache itemCache) { this.itemCache = itemCache; }
+
+    // every instance needs every invalidation, so each one joins with its own group id
+    @KafkaListener(topics = "item.events", groupId = "order-service-item-cache-${random.uuid}",
+            properties = "spring.json.value.default.type=com.xulunh.orderservice.events.ItemEventsListener$ItemEvent")
+    public void onItemEvent(ConsumerRecord<String, ItemEvent> record) {
+        var evt = record.value();
+        itemCache.invalidate(evt != null && evt.upc() != null ? evt.upc() : record.key());
+    }
+
+    public record ItemEvent(String type, String itemId, String upc) {}
+}
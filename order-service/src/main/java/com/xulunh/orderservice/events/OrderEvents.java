@@ -1,18 +1,41 @@
 package com.xulunh.orderservice.events;
 
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.domain.Order;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.util.UUID;
 
+// Every state change is published keyed by order id, so consumers see one order's events in order. Each event carries
+// the order's status, total and updatedAt, which lets payment-service keep a local copy instead of calling back.
 @Component
 public class OrderEvents {
     private final KafkaTemplate<String, Object> kafka;
     public OrderEvents(KafkaTemplate<String, Object> kafka) { this.kafka = kafka; }
 
-    public void publishCancelled(UUID orderId) {
-        kafka.send("order.events", orderId.toString(), new OrderEvent("OrderCancelled", orderId));
+    public void publishCreated(Order order) {
+        publish("OrderCreated", order);
     }
 
-    public record OrderEvent(String type, UUID orderId) {}
+    public void publishUpdated(Order order) {
+        publish("OrderUpdated", order);
+    }
+
+    public void publishCompleted(Order order) {
+        publish("OrderCompleted", order);
+    }
+
+    public void publishCancelled(Order order) {
+        publish("OrderCancelled", order);
+    }
+
+    private void publish(String type, Order order) {
+        kafka.send("order.events", order.getId().toString(), new OrderEvent(type, order.getId(), order.getAccountEmail(),
+                order.getStatus(), order.getTotalAmount(), order.getUpdatedAt()));
+    }
+
+    public record OrderEvent(String type, UUID orderId, String accountEmail, String status, Money totalAmount,
+                             Instant updatedAt) {}
 }
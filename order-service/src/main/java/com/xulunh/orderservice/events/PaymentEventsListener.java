@@ -1,30 +1,93 @@
 package com.xulunh.orderservice.events;
 
+import com.xulunh.orderservice.domain.Money;
 import com.xulunh.orderservice.service.OrderService;
+import jakarta.annotation.PreDestroy;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Component
 public class PaymentEventsListener {
     private final OrderService orders;
+    private final int parallelism;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
-    public PaymentEventsListener(OrderService orders) { this.orders = orders; }
+    public PaymentEventsListener(OrderService orders, @Value("${order.payment-events.parallelism:16}") int parallelism) {
+        this.orders = orders;
+        this.parallelism = parallelism;
+    }
+
+    // Default mode (order.payment-events.batch=true). Records for the same orderId run in poll order on one
+    // virtual thread; different orders run side by side, so one slow completion no longer stalls the partition.
+    @KafkaListener(id = "payment-events-batch", topics = "payment.events", groupId = "order-service",
+            containerFactory = "paymentEventsBatchFactory", autoStartup = "${order.payment-events.batch:true}")
+    public void onPaymentEvents(List<ConsumerRecord<String, PaymentEvent>> records) throws InterruptedException {
+        var byOrder = new LinkedHashMap<Object, List<PaymentEvent>>();
+        for (var record : records) {
+            var evt = record.value();
+            if (evt == null) continue;
+            Object key = record.key() != null ? record.key() : evt.orderId();
+            byOrder.computeIfAbsent(key, k -> new ArrayList<>()).add(evt);
+        }
 
-    @KafkaListener(topics = "payment.events", groupId = "order-service")
+        var permits = new Semaphore(parallelism);
+        var pending = new ArrayList<Future<?>>(byOrder.size());
+        for (var events : byOrder.values()) {
+            pending.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    events.forEach(this::handle);
+                } finally {
+                    permits.release();
+                }
+                return null;
+            }));
+        }
+        // Returning only after every group finished is what lets the container commit the batch's offsets
+        for (var f : pending) {
+            try {
+                f.get();
+            } catch (ExecutionException ignored) {
+                // handle() already swallows per-event failures
+            }
+        }
+    }
+
+    // Per-record fallback, enabled with order.payment-events.batch=false
+    @KafkaListener(id = "payment-events", topics = "payment.events", groupId = "order-service",
+            autoStartup = "#{!${order.payment-events.batch:true}}")
     public void onPaymentEvent(ConsumerRecord<String, PaymentEvent> record) {
         var evt = record.value();
-        if (evt == null || !"PaymentSucceeded".equals(evt.type())) return;
+        if (evt != null) handle(evt);
+    }
+
+    private void handle(PaymentEvent evt) {
+        if (!"PaymentSucceeded".equals(evt.type())) return;
         try {
             orders.complete(evt.orderId());
-        } catch (Exception ignored) {
-            // idempotent or invalid state → skip
+        } catch (Exception ex) {
+            // already completed (a redelivery) → skip; cancelled meanwhile → the payment has to be refunded
+            try { orders.republishIfCancelled(evt.orderId()); } catch (Exception ignored) {}
         }
     }
 
-    public record PaymentEvent(String type, UUID orderId, UUID paymentId, BigDecimal amount, Instant occurredAt) {}
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public record PaymentEvent(String type, UUID orderId, UUID paymentId, Money amount, Instant occurredAt) {}
 }
@@ -0,0 +1,50 @@
+package com.xulunh.orderservice.repository;
+
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.stereotype.Component;
+
+// Fill and repair of orders_by_account from orders: for orders written before the table existed, and for index rows
+// left stale by a best-effort index write that failed after its transition applied. Enabled with
+// order.account-index.backfill=true and run once the service is up. Each row is upserted with the write timestamp
+// its order state would have had (OrderWrites.timestamp), so cells a later transition already wrote are kept and the
+// run is safe to repeat, or to run next to live traffic.
+@Component
+@ConditionalOnProperty(name = "order.account-index.backfill", havingValue = "true")
+public class AccountIndexBackfill {
+    private static final Logger log = LoggerFactory.getLogger(AccountIndexBackfill.class);
+
+    private final CassandraOperations cassandra;
+
+    public AccountIndexBackfill(CassandraOperations cassandra) {
+        this.cassandra = cassandra;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        log.info("Backfilling orders_by_account from orders");
+        long filled = run();
+        log.info("orders_by_account backfill done, {} row(s) written", filled);
+    }
+
+    long run() {
+        long filled = 0;
+        try (var orders = cassandra.stream(Query.empty(), Order.class)) {
+            for (var it = orders.iterator(); it.hasNext(); ) {
+                var order = it.next();
+                cassandra.insert(OrderByAccount.of(order),
+                        InsertOptions.builder().timestamp(OrderWrites.timestamp(order)).build());
+                filled++;
+            }
+        }
+        return filled;
+    }
+}
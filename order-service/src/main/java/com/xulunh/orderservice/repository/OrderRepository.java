@@ -5,12 +5,10 @@ import org.springframework.data.cassandra.repository.CassandraRepository;
 import org.springframework.data.cassandra.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface OrderRepository extends CassandraRepository<Order, UUID> {
-    List<Order> findByAccountEmail(String accountEmail);
+public interface OrderRepository extends CassandraRepository<Order, UUID>, OrderRepositoryCustom {
 
     // Add this custom query method
     @Query("SELECT * FROM orders WHERE id = :id")
@@ -0,0 +1,31 @@
+package com.xulunh.orderservice.repository;
+
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface OrderRepositoryCustom {
+    // Writes the orders row and its orders_by_account row in one logged batch
+    Order saveWithAccountIndex(Order order);
+
+    // Writes only status and updated_at, if the order is still in expectedStatus; false when it was not (nothing written).
+    // A timed-out write is settled by reading the row back; if that cannot tell, the timeout is rethrown.
+    boolean updateStatus(Order order, String expectedStatus);
+
+    // Writes only items, total_amount and updated_at, if the order is still in expectedStatus
+    boolean updateItems(Order order, String expectedStatus);
+
+    // Single-partition read of an account's orders, newest first
+    List<OrderByAccount> findByAccountEmail(String accountEmail);
+
+    Slice<OrderByAccount> findByAccountEmail(String accountEmail, Pageable pageable);
+
+    // Lazily pages through the table with the driver's fetch size; callers must close the stream
+    Stream<Order> streamAll();
+
+    Stream<OrderByAccount> streamByAccountEmail(String accountEmail);
+}
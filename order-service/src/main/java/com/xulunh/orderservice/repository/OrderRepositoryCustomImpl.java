@@ -0,0 +1,108 @@
+package com.xulunh.orderservice.repository;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.cassandra.CassandraWriteTimeoutException;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.cql.SessionCallback;
+import org.springframework.data.cassandra.core.query.Criteria;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+    private static final Logger log = LoggerFactory.getLogger(OrderRepositoryCustomImpl.class);
+
+    private final CassandraOperations cassandra;
+    private final MeterRegistry registry;
+
+    OrderRepositoryCustomImpl(CassandraOperations cassandra, MeterRegistry registry) {
+        this.cassandra = cassandra;
+        this.registry = registry;
+    }
+
+    @Override
+    public Order saveWithAccountIndex(Order order) {
+        cassandra.batchOps()
+                .insert(order)
+                .insert(OrderByAccount.of(order), OrderWrites.indexWriteOptions(order))
+                .execute();
+        return order;
+    }
+
+    @Override
+    public boolean updateStatus(Order order, String expectedStatus) {
+        boolean applied;
+        try {
+            applied = execute(OrderWrites.STATUS, OrderWrites.status(order, expectedStatus));
+        } catch (CassandraWriteTimeoutException ex) {
+            applied = OrderWrites.outcome(readBack(order), order, expectedStatus).orElseThrow(() -> ex);
+        }
+        if (!applied) return false;
+        writeIndex(order, "status", OrderWrites.INDEX_STATUS, OrderWrites.indexStatus(order));
+        return true;
+    }
+
+    @Override
+    public boolean updateItems(Order order, String expectedStatus) {
+        var converter = cassandra.getConverter();
+        if (!execute(OrderWrites.ITEMS, OrderWrites.items(order, expectedStatus, converter))) return false;
+        writeIndex(order, "items", OrderWrites.INDEX_ITEMS, OrderWrites.indexItems(order, converter));
+        return true;
+    }
+
+    // The transition has applied by now, so failing the caller would report a change that happened as one that did
+    // not; a missed index write is left for AccountIndexBackfill to repair
+    private void writeIndex(Order order, String write, String cql, Object[] values) {
+        try {
+            execute(cql, values);
+        } catch (DataAccessException ex) {
+            OrderWrites.indexWriteFailed(registry, log, order, write, ex);
+        }
+    }
+
+    @Override
+    public List<OrderByAccount> findByAccountEmail(String accountEmail) {
+        return cassandra.select(byAccount(accountEmail), OrderByAccount.class);
+    }
+
+    @Override
+    public Slice<OrderByAccount> findByAccountEmail(String accountEmail, Pageable pageable) {
+        return cassandra.slice(byAccount(accountEmail).pageRequest(pageable), OrderByAccount.class);
+    }
+
+    @Override
+    public Stream<Order> streamAll() {
+        return cassandra.stream(Query.empty(), Order.class);
+    }
+
+    @Override
+    public Stream<OrderByAccount> streamByAccountEmail(String accountEmail) {
+        return cassandra.stream(byAccount(accountEmail), OrderByAccount.class);
+    }
+
+    // The driver caches prepared statements per session, so only the first call for a statement goes to the cluster
+    private boolean execute(String cql, Object[] values) {
+        return cassandra.getCqlOperations().execute(
+                (SessionCallback<Boolean>) session -> session.execute(session.prepare(cql).bind(values)).wasApplied());
+    }
+
+    private Row readBack(Order order) {
+        return cassandra.getCqlOperations().execute((SessionCallback<Row>) session -> session.execute(
+                SimpleStatement.newInstance(OrderWrites.READ_BACK, order.getId()).setConsistencyLevel(ConsistencyLevel.SERIAL)).one());
+    }
+
+    private static Query byAccount(String accountEmail) {
+        return Query.query(Criteria.where("account_email").is(accountEmail));
+    }
+}
@@ -0,0 +1,91 @@
+package com.xulunh.orderservice.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.xulunh.orderservice.domain.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.springframework.data.cassandra.core.convert.CassandraConverter;
+import org.springframework.data.cassandra.core.cql.WriteOptions;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+
+// Column-level order writes shared by OrderRepositoryCustomImpl and ReactiveOrderRepositoryCustomImpl. The orders row
+// is changed by a lightweight transaction on its status, so of two concurrent transitions only one applies; its write
+// timestamp is the coordinator's (see CassandraConfig). The orders_by_account row is in another partition and cannot
+// join that transaction; it is written once the first one applied, best-effort, and stamped with the order's
+// updatedAt. OrderService moves updatedAt strictly forward from the stored value, so a delayed index write from an
+// earlier transition cannot land over a later one, and an instance whose clock lags the last writer's still writes later.
+final class OrderWrites {
+    static final String STATUS = "UPDATE orders SET status = ?, updated_at = ? WHERE id = ? IF status = ?";
+    static final String ITEMS = "UPDATE orders SET items = ?, total_amount = ?, updated_at = ? WHERE id = ? IF status = ?";
+    static final String INDEX_STATUS = "UPDATE orders_by_account USING TIMESTAMP ? SET status = ?, updated_at = ? "
+            + "WHERE account_email = ? AND created_at = ? AND order_id = ?";
+    static final String INDEX_ITEMS = "UPDATE orders_by_account USING TIMESTAMP ? SET items = ?, total_amount = ?, updated_at = ? "
+            + "WHERE account_email = ? AND created_at = ? AND order_id = ?";
+    // Read at SERIAL after a timed-out transition: that finishes or supersedes any Paxos round still in flight on the row
+    static final String READ_BACK = "SELECT status, updated_at FROM orders WHERE id = ?";
+
+    private static final CqlIdentifier ITEMS_COLUMN = CqlIdentifier.fromCql("items");
+    private static final CqlIdentifier TOTAL_COLUMN = CqlIdentifier.fromCql("total_amount");
+
+    private OrderWrites() {}
+
+    static Object[] status(Order order, String expectedStatus) {
+        return new Object[]{order.getStatus(), order.getUpdatedAt(), order.getId(), expectedStatus};
+    }
+
+    static Object[] indexStatus(Order order) {
+        return new Object[]{timestamp(order), order.getStatus(), order.getUpdatedAt(), order.getAccountEmail(),
+                order.getCreatedAt(), order.getId()};
+    }
+
+    static Object[] items(Order order, String expectedStatus, CassandraConverter converter) {
+        var columns = udtColumns(order, converter);
+        return new Object[]{columns.get(ITEMS_COLUMN), columns.get(TOTAL_COLUMN), order.getUpdatedAt(), order.getId(),
+                expectedStatus};
+    }
+
+    static Object[] indexItems(Order order, CassandraConverter converter) {
+        var columns = udtColumns(order, converter);
+        return new Object[]{timestamp(order), columns.get(ITEMS_COLUMN), columns.get(TOTAL_COLUMN), order.getUpdatedAt(),
+                order.getAccountEmail(), order.getCreatedAt(), order.getId()};
+    }
+
+    // Write timestamp (epoch micros) of every orders_by_account write for this state of the order
+    static long timestamp(Order order) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, order.getUpdatedAt());
+    }
+
+    static WriteOptions indexWriteOptions(Order order) {
+        return WriteOptions.builder().timestamp(timestamp(order)).build();
+    }
+
+    static void indexWriteFailed(MeterRegistry registry, Logger log, Order order, String write, RuntimeException ex) {
+        registry.counter("order.account.index.write.failures", "write", write).increment();
+        log.warn("orders_by_account {} write failed for order {}; its transition applied, the index row is stale "
+                + "until AccountIndexBackfill runs", write, order.getId(), ex);
+    }
+
+    // The converter turns the items list and total into the order_item UDT values and decimal the statements bind
+    private static LinkedHashMap<CqlIdentifier, Object> udtColumns(Order order, CassandraConverter converter) {
+        var columns = new LinkedHashMap<CqlIdentifier, Object>();
+        converter.write(order, columns);
+        return columns;
+    }
+
+    // What a READ_BACK row says about a timed-out transition to order's status: applied when it holds that status and
+    // our updated_at (stored at millisecond precision), not applied when it is still in expectedStatus, otherwise unknown
+    static Optional<Boolean> outcome(Row row, Order order, String expectedStatus) {
+        if (row == null) return Optional.empty();
+        var status = row.getString("status");
+        if (order.getStatus().equals(status) && order.getUpdatedAt().truncatedTo(ChronoUnit.MILLIS).equals(row.getInstant("updated_at"))) {
+            return Optional.of(true);
+        }
+        if (expectedStatus.equals(status) && !expectedStatus.equals(order.getStatus())) return Optional.of(false);
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,10 @@
+package com.xulunh.orderservice.repository;
+
+import com.xulunh.orderservice.domain.Order;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+
+import java.util.UUID;
+
+// Non-blocking counterpart of OrderRepository over the same tables, used by the reactive profile
+public interface ReactiveOrderRepository extends ReactiveCassandraRepository<Order, UUID>, ReactiveOrderRepositoryCustom {
+}
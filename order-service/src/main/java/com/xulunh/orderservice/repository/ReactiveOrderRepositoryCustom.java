@@ -0,0 +1,28 @@
+package com.xulunh.orderservice.repository;
+
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveOrderRepositoryCustom {
+    // Writes the orders row and its orders_by_account row in one logged batch
+    Mono<Order> saveWithAccountIndex(Order order);
+
+    // Writes only status and updated_at, if the order is still in expectedStatus; false when it was not (nothing written).
+    // A timed-out write is settled by reading the row back; if that cannot tell, the timeout is signalled.
+    Mono<Boolean> updateStatus(Order order, String expectedStatus);
+
+    // Writes only items, total_amount and updated_at, if the order is still in expectedStatus
+    Mono<Boolean> updateItems(Order order, String expectedStatus);
+
+    // One page of the orders table; ReactiveCassandraRepository has no Pageable findAll
+    Mono<Slice<Order>> findSlice(Pageable pageable);
+
+    // Single-partition read of an account's orders, newest first, paged by the driver as it is consumed
+    Flux<OrderByAccount> findByAccountEmail(String accountEmail);
+
+    Mono<Slice<OrderByAccount>> findByAccountEmail(String accountEmail, Pageable pageable);
+}
@@ -0,0 +1,111 @@
+package com.xulunh.orderservice.repository;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.cassandra.CassandraWriteTimeoutException;
+import org.springframework.data.cassandra.ReactiveResultSet;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.cassandra.core.cql.ReactiveSessionCallback;
+import org.springframework.data.cassandra.core.query.Criteria;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+class ReactiveOrderRepositoryCustomImpl implements ReactiveOrderRepositoryCustom {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveOrderRepositoryCustomImpl.class);
+
+    private final ReactiveCassandraOperations cassandra;
+    private final MeterRegistry registry;
+
+    ReactiveOrderRepositoryCustomImpl(ReactiveCassandraOperations cassandra, MeterRegistry registry) {
+        this.cassandra = cassandra;
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Order> saveWithAccountIndex(Order order) {
+        return cassandra.batchOps()
+                .insert(order)
+                .insert(OrderByAccount.of(order), OrderWrites.indexWriteOptions(order))
+                .execute()
+                .thenReturn(order);
+    }
+
+    @Override
+    public Mono<Boolean> updateStatus(Order order, String expectedStatus) {
+        return execute(OrderWrites.STATUS, OrderWrites.status(order, expectedStatus))
+                .onErrorResume(CassandraWriteTimeoutException.class, ex -> readBack(order)
+                        .map(row -> OrderWrites.outcome(row, order, expectedStatus))
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(outcome -> outcome.map(Mono::just).orElseGet(() -> Mono.error(ex))))
+                .flatMap(applied -> applied
+                        ? writeIndex(order, "status", OrderWrites.INDEX_STATUS, OrderWrites.indexStatus(order))
+                        : Mono.just(false));
+    }
+
+    @Override
+    public Mono<Boolean> updateItems(Order order, String expectedStatus) {
+        var converter = cassandra.getConverter();
+        return Mono.fromSupplier(() -> OrderWrites.items(order, expectedStatus, converter))
+                .flatMap(values -> execute(OrderWrites.ITEMS, values))
+                .flatMap(applied -> applied
+                        ? writeIndex(order, "items", OrderWrites.INDEX_ITEMS, OrderWrites.indexItems(order, converter))
+                        : Mono.just(false));
+    }
+
+    @Override
+    public Mono<Slice<Order>> findSlice(Pageable pageable) {
+        return cassandra.slice(Query.empty().pageRequest(pageable), Order.class);
+    }
+
+    @Override
+    public Flux<OrderByAccount> findByAccountEmail(String accountEmail) {
+        return cassandra.select(byAccount(accountEmail), OrderByAccount.class);
+    }
+
+    @Override
+    public Mono<Slice<OrderByAccount>> findByAccountEmail(String accountEmail, Pageable pageable) {
+        return cassandra.slice(byAccount(accountEmail).pageRequest(pageable), OrderByAccount.class);
+    }
+
+    // Best-effort once the transition has applied, as in OrderRepositoryCustomImpl
+    private Mono<Boolean> writeIndex(Order order, String write, String cql, Object[] values) {
+        return execute(cql, values)
+                .onErrorResume(DataAccessException.class, ex -> {
+                    OrderWrites.indexWriteFailed(registry, log, order, write, ex);
+                    return Mono.empty();
+                })
+                .thenReturn(true);
+    }
+
+    private Mono<Boolean> execute(String cql, Object[] values) {
+        return cassandra.getReactiveCqlOperations()
+                .execute((ReactiveSessionCallback<Boolean>) session -> session.prepare(cql)
+                        .flatMap(statement -> session.execute(statement.bind(values)))
+                        .map(ReactiveResultSet::wasApplied))
+                .single();
+    }
+
+    private Mono<Row> readBack(Order order) {
+        return cassandra.getReactiveCqlOperations()
+                .execute((ReactiveSessionCallback<Row>) session -> session.execute(
+                        SimpleStatement.newInstance(OrderWrites.READ_BACK, order.getId()).setConsistencyLevel(ConsistencyLevel.SERIAL))
+                        .flatMap(rs -> rs.rows().next()))
+                .next();
+    }
+
+    private static Query byAccount(String accountEmail) {
+        return Query.query(Criteria.where("account_email").is(accountEmail));
+    }
+}
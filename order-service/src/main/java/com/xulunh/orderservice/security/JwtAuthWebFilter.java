@@ -0,0 +1,36 @@
+package com.xulunh.orderservice.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+
+// WebFlux counterpart of JwtAuthFilter; verification is CPU-only (and usually a cache hit), so it runs inline
+public class JwtAuthWebFilter implements WebFilter {
+    private final JwtTokenService tokenService;
+    public JwtAuthWebFilter(JwtTokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+        Claims claims;
+        try {
+            claims = tokenService.parse(header.substring(7));
+        } catch (Exception e) {
+            return chain.filter(exchange);
+        }
+        var auth = new UsernamePasswordAuthenticationToken(claims.getSubject(), null, Collections.emptyList());
+        return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
+    }
+}
@@ -0,0 +1,76 @@
+package com.xulunh.orderservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Runs item-service lookups concurrently on virtual threads so a request waits for the slowest call, not the sum.
+@Component
+public class ItemFanOut {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxParallelism;
+    private final Duration deadline;
+
+    public ItemFanOut(@Value("${item.lookup.max-parallelism:8}") int maxParallelism,
+                      @Value("${item.lookup.deadline:2s}") Duration deadline) {
+        if (maxParallelism < 1) throw new IllegalArgumentException("item.lookup.max-parallelism must be >= 1");
+        this.maxParallelism = maxParallelism;
+        this.deadline = deadline;
+    }
+
+    // Results come back in task order. The first failure cancels the remaining lookups and is rethrown as-is.
+    public <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+        if (tasks.isEmpty()) return List.of();
+        var permits = new Semaphore(maxParallelism);
+        var completion = new ExecutorCompletionService<T>(executor);
+        var futures = new ArrayList<Future<T>>(tasks.size());
+        long deadlineAt = System.nanoTime() + deadline.toNanos();
+        try {
+            for (var task : tasks) {
+                futures.add(completion.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return task.call();
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                var done = completion.poll(deadlineAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    throw new IllegalStateException("Item lookups exceeded deadline of " + deadline.toMillis() + "ms");
+                }
+                done.get();
+            }
+            var results = new ArrayList<T>(futures.size());
+            for (var f : futures) results.add(f.resultNow());
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Item lookup failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for item lookups", e);
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,45 +1,134 @@
 package com.xulunh.orderservice.service;
 
-
+import com.xulunh.orderservice.domain.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.RequestEntity;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 @Component
 public class ItemGateway {
 
     private final RestTemplate restTemplate;
     private final String baseUrl;
-    public ItemGateway(RestTemplate restTemplate, @Value("${item.service.base-url}") String baseUrl) {
+    private final ItemFanOut fanOut;
+    private final int batchSize;
+    private final ItemNearCache nearCache;
+    private final MeterRegistry registry;
+    public ItemGateway(RestTemplate restTemplate, @Value("${item.service.base-url}") String baseUrl,
+                       ItemFanOut fanOut, @Value("${item.lookup.batch-size:100}") int batchSize,
+                       ItemNearCache nearCache, MeterRegistry registry) {
         this.restTemplate = restTemplate;
         this.baseUrl = baseUrl;
+        this.fanOut = fanOut;
+        this.batchSize = batchSize;
+        this.nearCache = nearCache;
+        this.registry = registry;
     }
 
     public ItemDto getByUpc(String upc){
-        String url= UriComponentsBuilder.fromUriString(baseUrl+"/api/v1/items/by-upc").queryParam("upc", upc).toUriString();
-        return restTemplate.getForObject(url,ItemDto.class);
+        var cached = nearCache.get(upc);
+        if (cached != null) return cached;
+        var item = timed("by-upc", () -> restTemplate.getForObject(baseUrl + "/api/v1/items/by-upc?upc={upc}", ItemDto.class, upc));
+        nearCache.put(item);
+        return item;
+    }
+
+    public Map<String, ItemDto> getByUpcs(Collection<String> upcs) {
+        return getByUpcs(upcs, false);
+    }
+
+    // Cached entries may carry stale availableUnits; stock decisions pass bypassCache=true (or use reserve).
+    // Misses cost one round trip per batch-size chunk, chunks fetched in parallel.
+    // UPCs unknown to item-service are absent from the map.
+    public Map<String, ItemDto> getByUpcs(Collection<String> upcs, boolean bypassCache) {
+        var byUpc = new HashMap<String, ItemDto>();
+        var pending = new LinkedHashSet<>(upcs);
+        if (!bypassCache) {
+            byUpc.putAll(nearCache.getAll(pending));
+            pending.removeAll(byUpc.keySet());
+        }
+        var distinct = List.copyOf(pending);
+        var chunks = new ArrayList<Callable<ItemBatchResponse>>();
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            var chunk = distinct.subList(from, Math.min(from + batchSize, distinct.size()));
+            chunks.add(() -> timed("by-upcs", () -> restTemplate.postForObject(baseUrl + "/api/v1/items/by-upcs", new ItemBatchRequest(chunk), ItemBatchResponse.class)));
+        }
+        for (var res : fanOut.invokeAll(chunks)) {
+            if (res == null || res.items == null) continue;
+            for (var item : res.items) {
+                byUpc.put(item.upc, item);
+                nearCache.put(item);
+            }
+        }
+        return byUpc;
+    }
+
+    // Decrements stock for every line or none; a 409 from item-service comes back as reserved=false
+    public ReservationResult reserve(List<InventoryLine> lines) {
+        return timed("reserve", () -> {
+            try {
+                return restTemplate.postForObject(baseUrl + "/api/v1/items/inventory/reservations", new ReservationRequest(lines), ReservationResult.class);
+            } catch (HttpClientErrorException.Conflict ex) {
+                var res = ex.getResponseBodyAs(ReservationResult.class);
+                return res != null ? res : new ReservationResult();
+            }
+        });
+    }
+
+    public void release(List<InventoryLine> lines) {
+        timed("release", () -> restTemplate.postForLocation(baseUrl + "/api/v1/items/inventory/releases", new ReservationRequest(lines)));
     }
 
-    public ItemDto adjustInventory(String id, int delta){
-        String url= UriComponentsBuilder.fromUriString(baseUrl+"/api/v1/items/{id}/inventory").queryParam("delta", delta).build(id).toString();
-        RequestEntity<Void> requestEntity = RequestEntity.method(HttpMethod.PATCH,url).build();
-        ResponseEntity<ItemDto> res= restTemplate.exchange(requestEntity,ItemDto.class);
-        return res.getBody();
+    // item.gateway.requests per operation; URLs go through templates so http.client.requests keeps one uri tag per endpoint
+    private <T> T timed(String operation, Supplier<T> call) {
+        var sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("item.gateway.requests")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
     }
 
     public static class ItemDto{
         public String id;
         public String upc;
         public String name;
-        public BigDecimal unitPrice;
+        public Money unitPrice;
         public List<String> pictureUrls;
         public Integer availableUnits;
     }
+
+    public record ItemBatchRequest(List<String> upcs) {}
+
+    public record InventoryLine(String itemId, int quantity) {}
+
+    public record ReservationRequest(List<InventoryLine> lines) {}
+
+    public static class ReservationResult {
+        public boolean reserved;
+        public List<String> insufficient = List.of();
+    }
+
+    public static class ItemBatchResponse {
+        public List<ItemDto> items;
+        public List<String> missing;
+    }
 }
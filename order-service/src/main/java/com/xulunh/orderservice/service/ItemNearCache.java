@@ -0,0 +1,46 @@
+package com.xulunh.orderservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+// Size- and TTL-bounded copy of catalog items keyed by UPC. Entries are evicted early on item.events.
+// Hit rate, evictions and size are published as cache.* meters tagged cache=item-near-cache.
+@Component
+public class ItemNearCache {
+    private final Cache<String, ItemGateway.ItemDto> cache;
+
+    public ItemNearCache(MeterRegistry registry,
+                         @Value("${item.cache.max-size:10000}") long maxSize,
+                         @Value("${item.cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "item-near-cache");
+    }
+
+    public ItemGateway.ItemDto get(String upc) {
+        return cache.getIfPresent(upc);
+    }
+
+    public Map<String, ItemGateway.ItemDto> getAll(Collection<String> upcs) {
+        return cache.getAllPresent(upcs);
+    }
+
+    public void put(ItemGateway.ItemDto item) {
+        if (item != null && item.upc != null) cache.put(item.upc, item);
+    }
+
+    public void invalidate(String upc) {
+        if (upc != null) cache.invalidate(upc);
+    }
+}
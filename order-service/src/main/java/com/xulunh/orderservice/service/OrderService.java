@@ -1,24 +1,40 @@
 package com.xulunh.orderservice.service;
 
+import com.xulunh.orderservice.domain.Money;
 import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
 import com.xulunh.orderservice.domain.OrderItem;
 import com.xulunh.orderservice.dto.OrderCreateRequest;
+import com.xulunh.orderservice.dto.OrderItemRequest;
+import com.xulunh.orderservice.dto.OrderPage;
 import com.xulunh.orderservice.dto.OrderResponse;
 import com.xulunh.orderservice.events.OrderEvents;
 import com.xulunh.orderservice.repository.OrderRepository;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestClientException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
-import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class OrderService {
+    private static final int MAX_PAGE_SIZE = 500;
+    // Statuses only move forward (CREATED, COMPLETED, CANCELED), so a cancel that loses a race succeeds on a re-read
+    static final int CANCEL_ATTEMPTS = 3;
+
      private final OrderRepository orderRepository;
      private final ItemGateway itemGateway;
     private final OrderEvents orderEvents;
@@ -27,27 +43,120 @@ public class OrderService {
         this.itemGateway = items;
         this.orderEvents = events;
     }
-     private OrderResponse toResponse(Order order){
-         var itemDtos= order.getItems()==null? List.<OrderResponse.Item>of()
-                 :order.getItems().stream()
+    // updated_at only moves forward, by at least a millisecond (its stored precision) past the stored value: it stamps
+    // the order's orders_by_account writes (see OrderWrites), which must land in transition order whatever the clocks
+    static void touch(Order order) {
+        var now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        var last = order.getUpdatedAt();
+        order.setUpdatedAt(last == null || now.isAfter(last) ? now : last.plusMillis(1));
+    }
+
+     static OrderResponse toResponse(Order order){
+         return new OrderResponse(order.getId(),order.getAccountEmail(), order.getStatus(), order.getTotalAmount(),
+                 toItemDtos(order.getItems()), order.getCreatedAt(), order.getUpdatedAt());
+     }
+
+     static OrderResponse toResponse(OrderByAccount row){
+         return new OrderResponse(row.getOrderId(),row.getAccountEmail(), row.getStatus(), row.getTotalAmount(),
+                 toItemDtos(row.getItems()), row.getCreatedAt(), row.getUpdatedAt());
+     }
+
+     private static List<OrderResponse.Item> toItemDtos(List<OrderItem> items){
+         return items==null? List.of()
+                 :items.stream()
                  .map(i->new OrderResponse.Item(i.getItemId(),i.getUpc(),i.getName(),i.getUnitPrice(),i.getQuantity()))
                  .toList();
-         return new OrderResponse(order.getId(),order.getAccountEmail(), order.getStatus(), order.getTotalAmount(),
-                 itemDtos, order.getCreatedAt(), order.getUpdatedAt());
      }
 
-     private record PreparedItem(String itemId, String upc, String name, BigDecimal unitPrice, int quantity) {}
+     static List<ItemGateway.InventoryLine> inventoryLines(Order order) {
+         return order.getItems().stream().map(i -> new ItemGateway.InventoryLine(i.getItemId(), i.getQuantity())).toList();
+     }
+
+     record PricedItems(List<OrderItem> items, Money total) {}
+
+     private PricedItems priceItems(List<OrderItemRequest> lines) {
+         return priceItems(lines, itemGateway.getByUpcs(lines.stream().map(OrderItemRequest::upc).toList()));
+     }
+
+     static PricedItems priceItems(List<OrderItemRequest> lines, Map<String, ItemGateway.ItemDto> catalog) {
+         var orderItems = new ArrayList<OrderItem>(lines.size());
+         for (var it : lines) {
+             var item = catalog.get(it.upc());
+             if (item == null) {
+                 throw new IllegalStateException("Item " + it.upc() + " not found");
+             }
+             var oi = new OrderItem();
+             oi.setItemId(item.id);
+             oi.setUpc(item.upc);
+             oi.setName(item.name);
+             oi.setUnitPrice(item.unitPrice);
+             oi.setQuantity(it.quantity());
+             orderItems.add(oi);
+         }
+         return new PricedItems(orderItems, totalOf(orderItems));
+     }
+
+     static Money totalOf(List<OrderItem> items) {
+         if (items.isEmpty()) return Money.zero(Money.DEFAULT_CURRENCY);
+         var total = Money.zero(items.get(0).getUnitPrice().currency());
+         for (var i : items) {
+             total = total.plus(i.getUnitPrice().times(i.getQuantity()));
+         }
+         return total;
+     }
 
     public List<OrderResponse> getAll() {
-         return orderRepository.findAll().stream().map(this::toResponse).toList();
+         return orderRepository.findAll().stream().map(OrderService::toResponse).toList();
     }
 
     public List<OrderResponse> getByAccountEmail(String accountEmail) {
-         return orderRepository.findByAccountEmail(accountEmail).stream().map(this::toResponse).toList();
+         return orderRepository.findByAccountEmail(accountEmail).stream().map(OrderService::toResponse).toList();
+    }
+
+    public OrderPage getPage(int size, String pagingState) {
+         var slice = orderRepository.findAll(pageRequest(size, pagingState));
+         return new OrderPage(slice.getContent().stream().map(OrderService::toResponse).toList(), nextPagingState(slice));
+    }
+
+    public OrderPage getPageByAccountEmail(String accountEmail, int size, String pagingState) {
+         var slice = orderRepository.findByAccountEmail(accountEmail, pageRequest(size, pagingState));
+         return new OrderPage(slice.getContent().stream().map(OrderService::toResponse).toList(), nextPagingState(slice));
+    }
+
+    // Rows are mapped and handed to the sink as the driver fetches them, so memory stays flat regardless of table size
+    public void streamAll(Consumer<OrderResponse> sink) {
+         try (var orders = orderRepository.streamAll()) {
+             orders.map(OrderService::toResponse).forEach(sink);
+         }
+    }
+
+    public void streamByAccountEmail(String accountEmail, Consumer<OrderResponse> sink) {
+         try (var orders = orderRepository.streamByAccountEmail(accountEmail)) {
+             orders.map(OrderService::toResponse).forEach(sink);
+         }
+    }
+
+    static CassandraPageRequest pageRequest(int size, String pagingState) {
+         int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+         if (pagingState == null || pagingState.isBlank()) {
+             return CassandraPageRequest.first(pageSize);
+         }
+         var state = ByteBuffer.wrap(Base64.getUrlDecoder().decode(pagingState));
+         return CassandraPageRequest.of(PageRequest.of(0, pageSize), state);
+    }
+
+    static String nextPagingState(Slice<?> slice) {
+         if (!slice.hasNext() || !(slice.nextPageable() instanceof CassandraPageRequest next) || next.getPagingState() == null) {
+             return null;
+         }
+         var state = next.getPagingState().duplicate();
+         var bytes = new byte[state.remaining()];
+         state.get(bytes);
+         return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 //     @Transactional(readOnly = true)
     public OrderResponse get(UUID id) {
-        return orderRepository.findOrderById(id).map(this::toResponse).orElseThrow();
+        return orderRepository.findOrderById(id).map(OrderService::toResponse).orElseThrow();
     }
 
     @PreAuthorize("isAuthenticated()")
@@ -65,29 +174,12 @@ public class OrderService {
         order.setUpdatedAt(Instant.now());
         order.setCreatedAt(order.getUpdatedAt());
 
-        var orderItems = new ArrayList<OrderItem>();
-        BigDecimal total = BigDecimal.ZERO;
-
-        for (var it : req.items()) {
-            var item = itemGateway.getByUpc(it.upc());
-            if (item == null) {
-                throw new IllegalStateException("Item " + it.upc() + " not found");
-            }
-            var oi = new OrderItem();
-            oi.setItemId(item.id);
-            oi.setUpc(item.upc);
-            oi.setName(item.name);
-            oi.setUnitPrice(item.unitPrice);
-            oi.setQuantity(it.quantity());
-            orderItems.add(oi);
-
-            total = total.add(item.unitPrice.multiply(BigDecimal.valueOf(it.quantity())));
-        }
+        var priced = priceItems(req.items());
+        order.setItems(priced.items());
+        order.setTotalAmount(priced.total());
 
-        order.setItems(orderItems);
-        order.setTotalAmount(total);
-
-        var saved = orderRepository.save(order);
+        var saved = orderRepository.saveWithAccountIndex(order);
+        try { orderEvents.publishCreated(saved); } catch (Exception ignored) {}
         return toResponse(saved);
     }
 
@@ -106,29 +198,17 @@ public class OrderService {
             throw new IllegalStateException("Forbidden");
         }
 
-        var updatedItems = new ArrayList<OrderItem>();
-        BigDecimal total = BigDecimal.ZERO;
-
-        for (var it : req.items()) {
-            var item = itemGateway.getByUpc(it.upc());
-            if (item == null) {
-                throw new IllegalStateException("Item " + it.upc() + " not found");
-            }
-            var oi = new OrderItem();
-            oi.setItemId(item.id);
-            oi.setUpc(item.upc);
-            oi.setName(item.name);
-            oi.setUnitPrice(item.unitPrice);
-            oi.setQuantity(it.quantity());
-            updatedItems.add(oi);
-
-            total = total.add(item.unitPrice.multiply(BigDecimal.valueOf(it.quantity())));
+        var priced = priceItems(req.items());
+        // the items list is only rewritten when it changed, as each rewrite leaves tombstones for the old one
+        boolean itemsChanged = !priced.items().equals(o.getItems());
+        o.setItems(priced.items());
+        o.setTotalAmount(priced.total());
+        touch(o);
+        boolean applied = itemsChanged ? orderRepository.updateItems(o, "CREATED") : orderRepository.updateStatus(o, "CREATED");
+        if (!applied) {
+            throw new IllegalStateException("Only orders in CREATED status can be updated");
         }
-
-        o.setItems(updatedItems);
-        o.setTotalAmount(total);
-        o.setUpdatedAt(Instant.now());
-        o = orderRepository.save(o);
+        try { orderEvents.publishUpdated(o); } catch (Exception ignored) {}
         return toResponse(o);
     }
     @Transactional
@@ -138,55 +218,61 @@ public class OrderService {
             throw new IllegalStateException("Order not in CREATED status");
         }
 
-        // Pre-check availability
-        for (var it : o.getItems()) {
-            var item = itemGateway.getByUpc(it.getUpc());
-            int available = item == null || item.availableUnits == null ? 0 : item.availableUnits;
-            if (available < it.getQuantity()) {
-                throw new IllegalStateException("Insufficient stock for UPC " + it.getUpc());
-            }
-        }
-
-        // Deduct inventory with best-effort rollback
-        var deducted = new ArrayList<OrderItem>();
+        ItemGateway.ReservationResult reservation;
         try {
-            for (var it : o.getItems()) {
-                itemGateway.adjustInventory(it.getItemId(), -it.getQuantity());
-                deducted.add(it);
-            }
+            reservation = itemGateway.reserve(inventoryLines(o));
         } catch (RestClientException ex) {
-            for (var r : deducted) {
-                try { itemGateway.adjustInventory(r.getItemId(), r.getQuantity()); } catch (Exception ignore) {}
-            }
             throw new IllegalStateException("Failed to deduct inventory for completion");
         }
+        if (!reservation.reserved) {
+            var shortIds = Set.copyOf(reservation.insufficient);
+            String upc = o.getItems().stream().filter(it -> shortIds.contains(it.getItemId()))
+                    .map(OrderItem::getUpc).findFirst().orElse("unknown");
+            throw new IllegalStateException("Insufficient stock for UPC " + upc);
+        }
 
         o.setStatus("COMPLETED");
-        o.setUpdatedAt(Instant.now());
-        o = orderRepository.save(o);
+        touch(o);
+        // false means the transition definitely did not apply (a timed-out write is read back first). If updateStatus
+        // throws, the outcome is unknown and the stock stays reserved rather than risk releasing what a completed order holds.
+        if (!orderRepository.updateStatus(o, "CREATED")) {
+            try { itemGateway.release(inventoryLines(o)); } catch (Exception ignore) {}
+            throw new IllegalStateException("Order not in CREATED status");
+        }
+        try { orderEvents.publishCompleted(o); } catch (Exception ignored) {}
         return toResponse(o);
     }
 
+    // payment-service takes a payment on its order.events projection, which can trail a cancel. When the payment's
+    // completion finds the order cancelled, announcing the cancellation again makes payment-service refund it.
+    public boolean republishIfCancelled(UUID id) {
+        var o = orderRepository.findOrderById(id).orElse(null);
+        if (o == null || !"CANCELED".equals(o.getStatus())) return false;
+        orderEvents.publishCancelled(o);
+        return true;
+    }
+
     @Transactional
     public OrderResponse cancel(UUID id) {
-        var o = orderRepository.findOrderById(id).orElseThrow();
-        if ("CANCELED".equals(o.getStatus())) {
-            return toResponse(o);
-        }
+        for (int attempt = 0; attempt < CANCEL_ATTEMPTS; attempt++) {
+            var o = orderRepository.findOrderById(id).orElseThrow();
+            if ("CANCELED".equals(o.getStatus())) {
+                return toResponse(o);
+            }
+
+            var from = o.getStatus();
+            o.setStatus("CANCELED");
+            touch(o);
+            if (!orderRepository.updateStatus(o, from)) continue;
 
-        if ("COMPLETED".equals(o.getStatus())) {
-            for (var it : o.getItems()) {
-                try {
-                    itemGateway.adjustInventory(it.getItemId(), it.getQuantity());
-                } catch (Exception ignore) {}
+            // released only by the cancel whose transition applied, so a racing cancel cannot release twice
+            if ("COMPLETED".equals(from)) {
+                try { itemGateway.release(inventoryLines(o)); } catch (Exception ignore) {}
             }
+            try { orderEvents.publishCancelled(o); } catch (Exception ignored) {}
+            return toResponse(o);
         }
-
-        o.setStatus("CANCELED");
-        o.setUpdatedAt(Instant.now());
-        o = orderRepository.save(o);
-        try { orderEvents.publishCancelled(o.getId()); } catch (Exception ignored) {}
-        return toResponse(o);
+        throw new IllegalStateException("Order status changed concurrently, please retry");
     }
 
 
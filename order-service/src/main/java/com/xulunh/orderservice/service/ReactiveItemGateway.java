@@ -0,0 +1,110 @@
+package com.xulunh.orderservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+
+// WebClient counterpart of ItemGateway for the reactive profile: same endpoints, near-cache and
+// item.gateway.requests timers; batch chunks run concurrently up to item.lookup.max-parallelism.
+@Component
+@Profile("reactive")
+public class ReactiveItemGateway {
+    private final WebClient client;
+    private final ItemNearCache nearCache;
+    private final MeterRegistry registry;
+    private final int batchSize;
+    private final int maxParallelism;
+    private final Duration deadline;
+
+    public ReactiveItemGateway(WebClient itemServiceWebClient, ItemNearCache nearCache, MeterRegistry registry,
+                               @Value("${item.lookup.batch-size:100}") int batchSize,
+                               @Value("${item.lookup.max-parallelism:8}") int maxParallelism,
+                               @Value("${item.lookup.deadline:2s}") Duration deadline) {
+        this.client = itemServiceWebClient;
+        this.nearCache = nearCache;
+        this.registry = registry;
+        this.batchSize = batchSize;
+        this.maxParallelism = maxParallelism;
+        this.deadline = deadline;
+    }
+
+    // UPCs unknown to item-service are absent from the map
+    public Mono<Map<String, ItemGateway.ItemDto>> getByUpcs(Collection<String> upcs) {
+        var pending = new LinkedHashSet<>(upcs);
+        var cached = nearCache.getAll(pending);
+        pending.removeAll(cached.keySet());
+        if (pending.isEmpty()) return Mono.just(new HashMap<>(cached));
+
+        var distinct = List.copyOf(pending);
+        var chunks = new ArrayList<List<String>>();
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            chunks.add(distinct.subList(from, Math.min(from + batchSize, distinct.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .flatMap(chunk -> timed("by-upcs", client.post().uri("/api/v1/items/by-upcs")
+                        .bodyValue(new ItemGateway.ItemBatchRequest(chunk))
+                        .retrieve()
+                        .bodyToMono(ItemGateway.ItemBatchResponse.class)), maxParallelism)
+                .<Map<String, ItemGateway.ItemDto>>collect(() -> new HashMap<>(cached), (byUpc, res) -> {
+                    if (res.items == null) return;
+                    for (var item : res.items) {
+                        byUpc.put(item.upc, item);
+                        nearCache.put(item);
+                    }
+                })
+                .timeout(deadline, Mono.error(() ->
+                        new IllegalStateException("Item lookups exceeded deadline of " + deadline.toMillis() + "ms")));
+    }
+
+    // Decrements stock for every line or none; a 409 from item-service comes back as reserved=false
+    public Mono<ItemGateway.ReservationResult> reserve(List<ItemGateway.InventoryLine> lines) {
+        return timed("reserve", client.post().uri("/api/v1/items/inventory/reservations")
+                .bodyValue(new ItemGateway.ReservationRequest(lines))
+                .retrieve()
+                .bodyToMono(ItemGateway.ReservationResult.class)
+                .onErrorResume(WebClientResponseException.Conflict.class, ex ->
+                        Mono.justOrEmpty(ex.getResponseBodyAs(ItemGateway.ReservationResult.class)).defaultIfEmpty(new ItemGateway.ReservationResult())));
+    }
+
+    public Mono<Void> release(List<ItemGateway.InventoryLine> lines) {
+        return timed("release", client.post().uri("/api/v1/items/inventory/releases")
+                .bodyValue(new ItemGateway.ReservationRequest(lines))
+                .retrieve()
+                .toBodilessEntity()
+                .then());
+    }
+
+    private <T> Mono<T> timed(String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            var sample = Timer.start(registry);
+            return call.doFinally(signal -> sample.stop(Timer.builder("item.gateway.requests")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome(signal))
+                    .register(registry)));
+        });
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case CANCEL -> "cancelled";
+            default -> "error";
+        };
+    }
+}
@@ -0,0 +1,173 @@
+package com.xulunh.orderservice.service;
+
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderItem;
+import com.xulunh.orderservice.dto.OrderCreateRequest;
+import com.xulunh.orderservice.dto.OrderItemRequest;
+import com.xulunh.orderservice.dto.OrderPage;
+import com.xulunh.orderservice.dto.OrderResponse;
+import com.xulunh.orderservice.dto.OrderUpdateRequest;
+import com.xulunh.orderservice.events.OrderEvents;
+import com.xulunh.orderservice.repository.ReactiveOrderRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+
+// OrderService for the reactive profile: the same rules and responses, with Cassandra and item-service reached
+// through non-blocking drivers so an in-flight request holds no thread while it waits.
+@Service
+@Profile("reactive")
+public class ReactiveOrderService {
+    private final ReactiveOrderRepository orderRepository;
+    private final ReactiveItemGateway itemGateway;
+    private final OrderEvents orderEvents;
+
+    public ReactiveOrderService(ReactiveOrderRepository orders, ReactiveItemGateway items, OrderEvents events) {
+        this.orderRepository = orders;
+        this.itemGateway = items;
+        this.orderEvents = events;
+    }
+
+    public Flux<OrderResponse> getAll() {
+        return orderRepository.findAll().map(OrderService::toResponse);
+    }
+
+    public Flux<OrderResponse> getByAccountEmail(String accountEmail) {
+        return orderRepository.findByAccountEmail(accountEmail).map(OrderService::toResponse);
+    }
+
+    public Mono<OrderPage> getPage(int size, String pagingState) {
+        return orderRepository.findSlice(OrderService.pageRequest(size, pagingState))
+                .map(slice -> new OrderPage(slice.getContent().stream().map(OrderService::toResponse).toList(),
+                        OrderService.nextPagingState(slice)));
+    }
+
+    public Mono<OrderPage> getPageByAccountEmail(String accountEmail, int size, String pagingState) {
+        return orderRepository.findByAccountEmail(accountEmail, OrderService.pageRequest(size, pagingState))
+                .map(slice -> new OrderPage(slice.getContent().stream().map(OrderService::toResponse).toList(),
+                        OrderService.nextPagingState(slice)));
+    }
+
+    public Mono<OrderResponse> get(UUID id) {
+        return find(id).map(OrderService::toResponse);
+    }
+
+    public Mono<OrderResponse> create(OrderCreateRequest req) {
+        return currentUser().flatMap(accountEmail -> priceItems(req.items()).flatMap(priced -> {
+            var order = new Order();
+            order.setId(UUID.randomUUID());
+            order.setAccountEmail(accountEmail);
+            order.setStatus("CREATED");
+            order.setUpdatedAt(Instant.now());
+            order.setCreatedAt(order.getUpdatedAt());
+            order.setItems(priced.items());
+            order.setTotalAmount(priced.total());
+            return orderRepository.saveWithAccountIndex(order);
+        })).doOnSuccess(saved -> publish(() -> orderEvents.publishCreated(saved))).map(OrderService::toResponse);
+    }
+
+    public Mono<OrderResponse> update(UUID id, OrderUpdateRequest req) {
+        return currentUser().zipWith(find(id)).flatMap(t -> {
+            var o = t.getT2();
+            if (!"CREATED".equals(o.getStatus())) {
+                return Mono.error(new IllegalStateException("Only orders in CREATED status can be updated"));
+            }
+            if (!t.getT1().equals(o.getAccountEmail())) {
+                return Mono.error(new IllegalStateException("Forbidden"));
+            }
+            return priceItems(req.items()).flatMap(priced -> {
+                boolean itemsChanged = !priced.items().equals(o.getItems());
+                o.setItems(priced.items());
+                o.setTotalAmount(priced.total());
+                OrderService.touch(o);
+                return (itemsChanged ? orderRepository.updateItems(o, "CREATED") : orderRepository.updateStatus(o, "CREATED"))
+                        .flatMap(applied -> applied ? Mono.just(o)
+                                : Mono.error(new IllegalStateException("Only orders in CREATED status can be updated")));
+            });
+        }).doOnSuccess(saved -> publish(() -> orderEvents.publishUpdated(saved))).map(OrderService::toResponse);
+    }
+
+    public Mono<OrderResponse> complete(UUID id) {
+        return find(id).flatMap(o -> {
+            if (!"CREATED".equals(o.getStatus())) {
+                return Mono.error(new IllegalStateException("Order not in CREATED status"));
+            }
+            var lines = OrderService.inventoryLines(o);
+            return itemGateway.reserve(lines)
+                    .onErrorMap(WebClientException.class, ex -> new IllegalStateException("Failed to deduct inventory for completion"))
+                    .flatMap(reservation -> {
+                        if (!reservation.reserved) {
+                            var shortIds = Set.copyOf(reservation.insufficient);
+                            String upc = o.getItems().stream().filter(it -> shortIds.contains(it.getItemId()))
+                                    .map(OrderItem::getUpc).findFirst().orElse("unknown");
+                            return Mono.error(new IllegalStateException("Insufficient stock for UPC " + upc));
+                        }
+                        o.setStatus("COMPLETED");
+                        OrderService.touch(o);
+                        // only a definite false releases the stock; an error leaves the outcome unknown (see OrderService)
+                        return orderRepository.updateStatus(o, "CREATED")
+                                .flatMap(applied -> applied ? Mono.just(o) : itemGateway.release(lines).onErrorComplete()
+                                        .then(Mono.error(new IllegalStateException("Order not in CREATED status"))));
+                    });
+        }).doOnSuccess(saved -> publish(() -> orderEvents.publishCompleted(saved))).map(OrderService::toResponse);
+    }
+
+    public Mono<OrderResponse> cancel(UUID id) {
+        return cancel(id, OrderService.CANCEL_ATTEMPTS).map(OrderService::toResponse);
+    }
+
+    private Mono<Order> cancel(UUID id, int attemptsLeft) {
+        return find(id).flatMap(o -> {
+            if ("CANCELED".equals(o.getStatus())) {
+                return Mono.just(o);
+            }
+            var from = o.getStatus();
+            o.setStatus("CANCELED");
+            OrderService.touch(o);
+            return orderRepository.updateStatus(o, from).flatMap(applied -> {
+                if (!applied) {
+                    return attemptsLeft > 1 ? cancel(id, attemptsLeft - 1)
+                            : Mono.error(new IllegalStateException("Order status changed concurrently, please retry"));
+                }
+                Mono<Void> release = "COMPLETED".equals(from)
+                        ? itemGateway.release(OrderService.inventoryLines(o)).onErrorComplete()
+                        : Mono.empty();
+                return release.thenReturn(o).doOnSuccess(saved -> publish(() -> orderEvents.publishCancelled(saved)));
+            });
+        });
+    }
+
+    private Mono<Order> find(UUID id) {
+        return orderRepository.findById(id).switchIfEmpty(Mono.error(() -> new NoSuchElementException("No value present")));
+    }
+
+    private Mono<OrderService.PricedItems> priceItems(List<OrderItemRequest> lines) {
+        return itemGateway.getByUpcs(lines.stream().map(OrderItemRequest::upc).toList())
+                .map(catalog -> OrderService.priceItems(lines, catalog));
+    }
+
+    private static Mono<String> currentUser() {
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(ctx -> ctx.getAuthentication() != null ? ctx.getAuthentication().getName() : null)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Unauthenticated")));
+    }
+
+    // The producer may block on a metadata fetch, so the send is kept off the event loop; failures are ignored
+    // as in OrderService
+    private void publish(Runnable send) {
+        Mono.fromRunnable(send)
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorComplete()
+                .subscribe();
+    }
+}
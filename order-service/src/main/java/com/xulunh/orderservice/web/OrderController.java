@@ -1,23 +1,42 @@
 package com.xulunh.orderservice.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xulunh.orderservice.dto.OrderCreateRequest;
+import com.xulunh.orderservice.dto.OrderPage;
 import com.xulunh.orderservice.dto.OrderResponse;
 import com.xulunh.orderservice.dto.OrderUpdateRequest;
 import com.xulunh.orderservice.service.OrderService;
 import jakarta.validation.Valid;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/orders")
 public class OrderController {
 
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final OrderService orderService;
-    public OrderController(OrderService orderService){
+    private final ObjectMapper objectMapper;
+    private final Duration exportTimeout;
+    public OrderController(OrderService orderService, ObjectMapper objectMapper,
+                           @Value("${order.export.timeout:30m}") Duration exportTimeout){
         this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.exportTimeout = exportTimeout;
     }
 
     @PostMapping
@@ -29,10 +48,28 @@ public class OrderController {
     public List<OrderResponse> getOrders() {
         return orderService.getAll();
     }
+    @GetMapping(params = "size")
+    public OrderPage getOrders(@RequestParam int size, @RequestParam(required = false) String pagingState) {
+        return orderService.getPage(size, pagingState);
+    }
+    @GetMapping(produces = APPLICATION_NDJSON)
+    public WebAsyncTask<Void> streamOrders(HttpServletResponse response) {
+        return ndjson(response, orderService::streamAll);
+    }
     @GetMapping("/by-accountEmail")
     public List<OrderResponse> getOrdersByAccountEmail(@RequestParam("accountEmail") String accountEmail) {
         return orderService.getByAccountEmail(accountEmail);
     }
+    @GetMapping(value = "/by-accountEmail", params = "size")
+    public OrderPage getOrdersByAccountEmail(@RequestParam("accountEmail") String accountEmail, @RequestParam int size,
+                                             @RequestParam(required = false) String pagingState) {
+        return orderService.getPageByAccountEmail(accountEmail, size, pagingState);
+    }
+    @GetMapping(value = "/by-accountEmail", produces = APPLICATION_NDJSON)
+    public WebAsyncTask<Void> streamOrdersByAccountEmail(@RequestParam("accountEmail") String accountEmail,
+                                                         HttpServletResponse response) {
+        return ndjson(response, sink -> orderService.streamByAccountEmail(accountEmail, sink));
+    }
     @GetMapping("/{id}")
     public OrderResponse get(@PathVariable UUID id) {
         return orderService.get(id);
@@ -49,4 +86,28 @@ public class OrderController {
     public OrderResponse cancel(@PathVariable UUID id) {
         return orderService.cancel(id);
     }
+
+    // One JSON document per line, written as rows are fetched so exports run in constant memory. The export runs as an
+    // async request with its own timeout; other requests keep the container default, which would cut a long export off.
+    private WebAsyncTask<Void> ndjson(HttpServletResponse response, Consumer<Consumer<OrderResponse>> source) {
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            response.setContentType(APPLICATION_NDJSON);
+            var out = response.getOutputStream();
+            var writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try {
+                source.accept(order -> {
+                    try {
+                        writer.writeValue(out, order);
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+            return null;
+        });
+    }
 }
@@ -0,0 +1,77 @@
+package com.xulunh.orderservice.web;
+
+import com.xulunh.orderservice.dto.OrderCreateRequest;
+import com.xulunh.orderservice.dto.OrderPage;
+import com.xulunh.orderservice.dto.OrderResponse;
+import com.xulunh.orderservice.dto.OrderUpdateRequest;
+import com.xulunh.orderservice.service.ReactiveOrderService;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static com.xulunh.orderservice.web.OrderController.APPLICATION_NDJSON;
+
+// Same API as OrderController, served by WebFlux under the reactive profile. NDJSON responses are written
+// as the driver pages through Cassandra.
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/orders")
+public class ReactiveOrderController {
+
+    private final ReactiveOrderService orderService;
+    public ReactiveOrderController(ReactiveOrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<OrderResponse> create(@Valid @RequestBody OrderCreateRequest req) {
+        return orderService.create(req);
+    }
+    @GetMapping
+    public Flux<OrderResponse> getOrders() {
+        return orderService.getAll();
+    }
+    @GetMapping(params = "size")
+    public Mono<OrderPage> getOrders(@RequestParam int size, @RequestParam(required = false) String pagingState) {
+        return orderService.getPage(size, pagingState);
+    }
+    @GetMapping(produces = APPLICATION_NDJSON)
+    public Flux<OrderResponse> streamOrders() {
+        return orderService.getAll();
+    }
+    @GetMapping("/by-accountEmail")
+    public Flux<OrderResponse> getOrdersByAccountEmail(@RequestParam("accountEmail") String accountEmail) {
+        return orderService.getByAccountEmail(accountEmail);
+    }
+    @GetMapping(value = "/by-accountEmail", params = "size")
+    public Mono<OrderPage> getOrdersByAccountEmail(@RequestParam("accountEmail") String accountEmail, @RequestParam int size,
+                                                   @RequestParam(required = false) String pagingState) {
+        return orderService.getPageByAccountEmail(accountEmail, size, pagingState);
+    }
+    @GetMapping(value = "/by-accountEmail", produces = APPLICATION_NDJSON)
+    public Flux<OrderResponse> streamOrdersByAccountEmail(@RequestParam("accountEmail") String accountEmail) {
+        return orderService.getByAccountEmail(accountEmail);
+    }
+    @GetMapping("/{id}")
+    public Mono<OrderResponse> get(@PathVariable UUID id) {
+        return orderService.get(id);
+    }
+    @PostMapping("/{id}/complete")
+    public Mono<OrderResponse> complete(@PathVariable UUID id) {
+        return orderService.complete(id);
+    }
+    @PutMapping("/{id}")
+    public Mono<OrderResponse> update(@PathVariable UUID id, @Valid @RequestBody OrderUpdateRequest req) {
+        return orderService.update(id, req);
+    }
+    @PostMapping("/{id}/cancel")
+    public Mono<OrderResponse> cancel(@PathVariable UUID id) {
+        return orderService.cancel(id);
+    }
+}
@@ -0,0 +1,72 @@
+package com.xulunh.orderservice.config;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.data.UdtValue;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.internal.core.type.UserDefinedTypeBuilder;
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.cassandra.core.convert.MappingCassandraConverter;
+import org.springframework.data.cassandra.core.mapping.CassandraMappingContext;
+import org.springframework.data.cassandra.core.mapping.UserTypeResolver;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CassandraConfigTest {
+
+    private static final CqlIdentifier KEYSPACE = CqlIdentifier.fromCql("orderdb");
+
+    @Test
+    void moneyIsWrittenAsTheExistingDecimal_alsoInsideOrderItems() {
+        var itemType = new UserDefinedTypeBuilder(KEYSPACE, CqlIdentifier.fromCql("order_item"))
+                .withField(CqlIdentifier.fromCql("itemid"), DataTypes.TEXT)
+                .withField(CqlIdentifier.fromCql("upc"), DataTypes.TEXT)
+                .withField(CqlIdentifier.fromCql("name"), DataTypes.TEXT)
+                .withField(CqlIdentifier.fromCql("unitprice"), DataTypes.DECIMAL)
+                .withField(CqlIdentifier.fromCql("quantity"), DataTypes.INT)
+                .build();
+        var resolver = mock(UserTypeResolver.class);
+        when(resolver.resolveType(CqlIdentifier.fromCql("order_item"))).thenReturn(itemType);
+        var conversions = new CassandraConfig().cassandraCustomConversions();
+        var context = new CassandraMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        var converter = new MappingCassandraConverter(context);
+        converter.setUserTypeResolver(resolver);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        var item = new OrderItem();
+        item.setItemId("i1");
+        item.setUnitPrice(new Money(250, Money.DEFAULT_CURRENCY));
+        item.setQuantity(4);
+        var order = new Order();
+        order.setId(UUID.randomUUID());
+        order.setTotalAmount(new Money(1000, Money.DEFAULT_CURRENCY));
+        order.setItems(List.of(item));
+        var columns = new LinkedHashMap<CqlIdentifier, Object>();
+
+        converter.write(order, columns);
+
+        assertThat(columns.get(CqlIdentifier.fromCql("total_amount"))).isEqualTo(new BigDecimal("10.00"));
+        var items = (List<?>) columns.get(CqlIdentifier.fromCql("items"));
+        assertThat(((UdtValue) items.get(0)).getBigDecimal("unitprice")).isEqualTo(new BigDecimal("2.50"));
+    }
+
+    @Test
+    void decimalIsReadBackAsMoney_andOtherCurrenciesAreNotWritten() {
+        assertThat(new CassandraConfig.DecimalToMoney().convert(new BigDecimal("2.5"))).isEqualTo(new Money(250, Money.DEFAULT_CURRENCY));
+        assertThatThrownBy(() -> new CassandraConfig.MoneyToDecimal().convert(new Money(100, Currency.getInstance("EUR"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.xulunh.orderservice.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestClientConfigTest {
+
+    private final RestClientConfig config = new RestClientConfig();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ping", exchange -> {
+            var body = "pong".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void pooledFactory_publishesPoolAndAcquireMetrics() throws Exception {
+        var factory = config.interServiceRequestFactory(registry, 20, 5, Duration.ofSeconds(1), Duration.ofSeconds(2),
+                Duration.ofMillis(500), Duration.ofSeconds(30), false);
+        assertThat(factory).isInstanceOf(HttpComponentsClientHttpRequestFactory.class);
+
+        var rest = new RestTemplate(factory);
+        var url = "http://localhost:" + server.getAddress().getPort() + "/ping";
+        assertThat(rest.getForObject(url, String.class)).isEqualTo("pong");
+        assertThat(rest.getForObject(url, String.class)).isEqualTo("pong");
+
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", "inter-service").gauge().value())
+                .isEqualTo(20);
+        assertThat(registry.get("http.client.connections.acquire").tag("outcome", "leased").timer().count())
+                .isEqualTo(2);
+        ((HttpComponentsClientHttpRequestFactory) factory).destroy();
+    }
+
+    @Test
+    void http2Flag_switchesToJdkClient() {
+        var factory = config.interServiceRequestFactory(registry, 20, 5, Duration.ofSeconds(1), Duration.ofSeconds(2),
+                Duration.ofMillis(500), Duration.ofSeconds(30), true);
+        assertThat(factory).isInstanceOf(JdkClientHttpRequestFactory.class);
+    }
+}
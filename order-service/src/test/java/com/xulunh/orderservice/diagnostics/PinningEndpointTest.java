@@ -0,0 +1,90 @@
+package com.xulunh.orderservice.diagnostics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PinningEndpointTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PinningEndpoint endpoint = new PinningEndpoint(registry, Duration.ofMillis(20), false);
+
+    @AfterEach
+    void close() {
+        endpoint.close();
+    }
+
+    @Test
+    void record_groupsByFirstFrameOutsideTheJdk() {
+        var jdbc = List.of("jdk.internal.misc.Unsafe.park:-1", "java.util.concurrent.locks.LockSupport.park:221",
+                "com.mysql.cj.protocol.a.NativeSocketConnection.read:42", "com.xulunh.Repo.find:10");
+        endpoint.record(jdbc, Duration.ofMillis(30));
+        endpoint.record(jdbc, Duration.ofMillis(50));
+        endpoint.record(List.of("java.lang.Thread.sleep:500"), Duration.ofMillis(25));
+
+        var report = endpoint.report();
+        assertThat(report.events()).isEqualTo(3);
+        assertThat(report.totalPinnedMs()).isEqualTo(105.0);
+        assertThat(report.sites()).extracting(PinningEndpoint.SiteReport::site)
+                .containsExactly("com.mysql.cj.protocol.a.NativeSocketConnection.read:42", "java.lang.Thread.sleep:500");
+        var top = report.sites().get(0);
+        assertThat(top.count()).isEqualTo(2);
+        assertThat(top.maxMs()).isEqualTo(50.0);
+        assertThat(top.stack()).isEqualTo(jdbc);
+
+        endpoint.reset();
+        assertThat(endpoint.report().sites()).isEmpty();
+        assertThat(registry.get("jvm.threads.virtual.pinned").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void record_keepsTheTopOfALongStack() {
+        var stack = new ArrayList<String>();
+        for (int i = 0; i < 40; i++) stack.add("com.example.Deep.call:" + i);
+
+        endpoint.record(stack, Duration.ofMillis(30));
+
+        assertThat(endpoint.report().sites().get(0).stack()).hasSize(16).startsWith("com.example.Deep.call:0");
+    }
+
+    @Test
+    void ownFramesOnly_keepsOnlyEventsThatPassThroughThisService() {
+        var filtered = new PinningEndpoint(new SimpleMeterRegistry(), Duration.ofMillis(20), true);
+        try {
+            filtered.record(List.of("java.lang.Object.wait:-1", "com.mysql.cj.protocol.a.NativeSocketConnection.read:42",
+                    "com.xulunh.orderservice.service.OrderService.get:40"), Duration.ofMillis(30));
+            filtered.record(List.of("java.lang.Object.wait:-1", "com.xulunh.paymentservice.service.PaymentService.submit:40"), Duration.ofMillis(30));
+
+            assertThat(PinningEndpoint.OWN_PACKAGE).isEqualTo("com.xulunh.orderservice.");
+            assertThat(filtered.report().events()).isEqualTo(1);
+        } finally {
+            filtered.close();
+        }
+    }
+
+    @Test
+    void capturesPinningFromSynchronizedBlocks() throws Exception {
+        var lock = new Object();
+        for (int attempt = 0; attempt < 100 && endpoint.report().events() == 0; attempt++) {
+            Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }).join();
+            Thread.sleep(200);
+        }
+
+        assertThat(endpoint.report().sites()).anySatisfy(site ->
+                assertThat(site.site()).startsWith(PinningEndpointTest.class.getName()));
+    }
+}
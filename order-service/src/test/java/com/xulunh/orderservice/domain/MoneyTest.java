@@ -0,0 +1,61 @@
+package com.xulunh.orderservice.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    @Test
+    void parse_isExactRegardlessOfScale() {
+        assertThat(Money.parse("9.5", EUR)).isEqualTo(Money.parse("9.50", EUR)).isEqualTo(new Money(950, EUR));
+        assertThat(Money.parse("12", EUR).units()).isEqualTo(1200);
+        assertThat(Money.parse("-0.05", EUR).units()).isEqualTo(-5);
+        assertThat(Money.parse("1.2E1", EUR).units()).isEqualTo(1200);
+        assertThat(Money.parse("1500", JPY).units()).isEqualTo(1500);
+        assertThat(Money.of(new BigDecimal("19.980"))).isEqualTo(new Money(1998, Money.DEFAULT_CURRENCY));
+    }
+
+    @Test
+    void parse_rejectsFractionsTheCurrencyCannotHold() {
+        assertThatThrownBy(() -> Money.parse("1.005", EUR)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.parse("1.5", JPY)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("0.001"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.parse(".", EUR)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Money.parse("1,5", EUR)).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void arithmetic_staysInMinorUnitsAndChecksCurrency() {
+        var total = Money.parse("3.50", EUR).times(2).plus(Money.parse("1.25", EUR).times(4));
+
+        assertThat(total.units()).isEqualTo(1200);
+        assertThat(total.toPlainString()).isEqualTo("12.00");
+        assertThat(new Money(-5, EUR).toPlainString()).isEqualTo("-0.05");
+        assertThat(new Money(1500, JPY).toPlainString()).isEqualTo("1500");
+        assertThat(total.toBigDecimal()).isEqualTo(new BigDecimal("12.00"));
+        assertThatThrownBy(() -> total.plus(new Money(1, JPY))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Money(Long.MAX_VALUE, EUR).times(2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void json_isAPlainDecimalNumber() throws Exception {
+        var mapper = new ObjectMapper();
+
+        assertThat(mapper.writeValueAsString(Map.of("amount", Money.of(new BigDecimal("19.9")))))
+                .isEqualTo("{\"amount\":19.90}");
+        assertThat(mapper.readValue("19.98", Money.class)).isEqualTo(new Money(1998, Money.DEFAULT_CURRENCY));
+        assertThat(mapper.readValue("\"7\"", Money.class)).isEqualTo(new Money(700, Money.DEFAULT_CURRENCY));
+        assertThatThrownBy(() -> mapper.readValue("1.999", Money.class)).isInstanceOf(InvalidFormatException.class);
+    }
+}
@@ -0,0 +1,116 @@
+package com.xulunh.orderservice.events;
+
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.events.OrderEvents.OrderEvent;
+import com.xulunh.orderservice.events.PaymentEventsListener.PaymentEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventCodecTest {
+    // The same bytes are asserted by payment-service's EventCodecTest, which reads what this side writes and vice versa
+    private static final String ORDER_CANCELLED_V1 = "0d000e4f7264657243616e63656c6c65643f2504e04f8911d39a0c0305e82c3301"
+            + "00116275796572406578616d706c652e636f6d000843414e43454c454400000000000011925553440006475ef64ed580";
+    private static final String PAYMENT_SUCCEEDED_V1 = "0f00105061796d656e745375636365656465643f2504e04f8911d39a0c0305e82c3301"
+            + "7c9e6679742540de944be07fc1f90ae700000000000011925553440006475ef64ed580";
+
+    private static final UUID ORDER_ID = UUID.fromString("3f2504e0-4f89-11d3-9a0c-0305e82c3301");
+    private static final UUID PAYMENT_ID = UUID.fromString("7c9e6679-7425-40de-944b-e07fc1f90ae7");
+    private static final Instant AT = Instant.parse("2026-01-02T03:04:05.123456789Z");
+    private static final Money TOTAL = new Money(4498, Money.DEFAULT_CURRENCY);
+
+    private final OrderEvent cancelled = new OrderEvent("OrderCancelled", ORDER_ID, "buyer@example.com", "CANCELED", TOTAL, AT);
+
+    private static EventSerializer serializer(String format) {
+        var serializer = new EventSerializer();
+        serializer.configure(Map.of(EventSerializer.FORMAT_CONFIG, format), false);
+        return serializer;
+    }
+
+    private static EventDeserializer deserializer() {
+        var deserializer = new EventDeserializer();
+        deserializer.configure(Map.of(JsonDeserializer.VALUE_DEFAULT_TYPE, PaymentEvent.class.getName(),
+                JsonDeserializer.TRUSTED_PACKAGES, "*", JsonDeserializer.USE_TYPE_INFO_HEADERS, false), false);
+        return deserializer;
+    }
+
+    private static RecordHeaders formatHeader(String format) {
+        var headers = new RecordHeaders();
+        headers.add(EventCodec.HEADER, format.getBytes(StandardCharsets.US_ASCII));
+        return headers;
+    }
+
+    @Test
+    void binaryFormat_writesTheV1LayoutAndMarksIt() {
+        var headers = new RecordHeaders();
+
+        byte[] bytes = serializer("binary").serialize("order.events", headers, cancelled);
+
+        assertThat(HexFormat.of().formatHex(bytes)).isEqualTo(ORDER_CANCELLED_V1);
+        assertThat(new String(headers.lastHeader(EventCodec.HEADER).value(), StandardCharsets.US_ASCII))
+                .isEqualTo(EventCodec.ORDER_EVENT_V1);
+    }
+
+    @Test
+    void jsonFormat_writesJsonWithoutTheHeader() {
+        var headers = new RecordHeaders();
+
+        byte[] bytes = serializer("json").serialize("order.events", headers, cancelled);
+
+        assertThat(headers.lastHeader(EventCodec.HEADER)).isNull();
+        assertThat(new String(bytes, StandardCharsets.UTF_8)).contains("\"orderId\":\"" + ORDER_ID + "\"");
+    }
+
+    @Test
+    void binaryPaymentEvent_isDecodedToMicrosecondPrecision() {
+        var evt = deserializer().deserialize("payment.events", formatHeader(EventCodec.PAYMENT_EVENT_V1),
+                HexFormat.of().parseHex(PAYMENT_SUCCEEDED_V1));
+
+        assertThat(evt).isEqualTo(new PaymentEvent("PaymentSucceeded", ORDER_ID, PAYMENT_ID, TOTAL,
+                Instant.parse("2026-01-02T03:04:05.123456Z")));
+    }
+
+    @Test
+    void absentFixedWidthFields_decodeAsNull() {
+        // flags without the amount bit
+        var bytes = HexFormat.of().parseHex("0b" + PAYMENT_SUCCEEDED_V1.substring(2));
+
+        var evt = (PaymentEvent) deserializer().deserialize("payment.events", formatHeader(EventCodec.PAYMENT_EVENT_V1), bytes);
+
+        assertThat(evt.amount()).isNull();
+        assertThat(evt.paymentId()).isEqualTo(PAYMENT_ID);
+    }
+
+    @Test
+    void recordsWithoutTheHeader_areReadAsJson() {
+        var json = "{\"type\":\"PaymentSucceeded\",\"orderId\":\"" + ORDER_ID + "\",\"amount\":44.98}";
+
+        var evt = (PaymentEvent) deserializer().deserialize("payment.events", new RecordHeaders(),
+                json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(evt.orderId()).isEqualTo(ORDER_ID);
+        assertThat(evt.amount()).isEqualTo(TOTAL);
+    }
+
+    @Test
+    void unknownOrTruncatedBinary_isRejected() {
+        var bytes = HexFormat.of().parseHex(PAYMENT_SUCCEEDED_V1);
+
+        assertThatThrownBy(() -> deserializer().deserialize("payment.events", formatHeader("payment-event-v2"), bytes))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> deserializer().deserialize("payment.events", formatHeader(EventCodec.PAYMENT_EVENT_V1),
+                Arrays.copyOf(bytes, 20)))
+                .isInstanceOf(SerializationException.class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.xulunh.orderservice.events;
+
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.events.PaymentEventsListener.PaymentEvent;
+import com.xulunh.orderservice.service.OrderService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PaymentEventsListenerTest {
+    private final OrderService orders = mock(OrderService.class);
+    private final PaymentEventsListener listener = new PaymentEventsListener(orders, 4);
+
+    @AfterEach
+    void tearDown() { listener.shutdown(); }
+
+    private static ConsumerRecord<String, PaymentEvent> record(long offset, UUID orderId, String type) {
+        var evt = new PaymentEvent(type, orderId, UUID.randomUUID(), Money.of(BigDecimal.TEN), Instant.now());
+        return new ConsumerRecord<>("payment.events", 0, offset, orderId.toString(), evt);
+    }
+
+    @Test
+    void batch_completesSucceededPaymentsAndSkipsOthers() throws Exception {
+        var a = UUID.randomUUID();
+        var b = UUID.randomUUID();
+
+        listener.onPaymentEvents(List.of(record(0, a, "PaymentSucceeded"), record(1, b, "PaymentFailed")));
+
+        verify(orders).complete(a);
+        verify(orders, never()).complete(b);
+    }
+
+    @Test
+    void batch_runsDifferentOrdersInParallel() throws Exception {
+        var a = UUID.randomUUID();
+        var b = UUID.randomUUID();
+        var bothStarted = new CountDownLatch(2);
+        doAnswer(inv -> {
+            bothStarted.countDown();
+            // would time out if the two orders were handled one after the other
+            assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            return null;
+        }).when(orders).complete(any());
+
+        listener.onPaymentEvents(List.of(record(0, a, "PaymentSucceeded"), record(1, b, "PaymentSucceeded")));
+
+        assertThat(bothStarted.getCount()).isZero();
+    }
+
+    @Test
+    void batch_keepsOrderWithinKeyAndSwallowsFailures() throws Exception {
+        var a = UUID.randomUUID();
+        var seen = new CopyOnWriteArrayList<String>();
+        doAnswer(inv -> {
+            seen.add("complete-" + seen.size());
+            if (seen.size() == 1) throw new IllegalStateException("Order not found");
+            return null;
+        }).when(orders).complete(a);
+
+        listener.onPaymentEvents(List.of(record(0, a, "PaymentSucceeded"), record(1, a, "PaymentSucceeded")));
+
+        assertThat(seen).containsExactly("complete-0", "complete-1");
+    }
+
+    @Test
+    void record_fallbackCompletesOrder() {
+        var a = UUID.randomUUID();
+
+        listener.onPaymentEvent(record(0, a, "PaymentSucceeded"));
+
+        verify(orders).complete(a);
+    }
+
+    @Test
+    void paymentForAnOrderNoLongerCreated_asksForTheCancellationToBeRepublished() {
+        var a = UUID.randomUUID();
+        when(orders.complete(a)).thenThrow(new IllegalStateException("Order not in CREATED status"));
+
+        listener.onPaymentEvent(record(0, a, "PaymentSucceeded"));
+
+        verify(orders).republishIfCancelled(a);
+    }
+}
@@ -0,0 +1,58 @@
+package com.xulunh.orderservice.repository;
+
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.data.cassandra.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AccountIndexBackfillTest {
+
+    private final CassandraOperations cassandra = mock(CassandraOperations.class);
+    private final AccountIndexBackfill backfill = new AccountIndexBackfill(cassandra);
+
+    private static Order order(String status) {
+        var o = new Order();
+        o.setId(UUID.randomUUID());
+        o.setAccountEmail("buyer@example.com");
+        o.setStatus(status);
+        o.setTotalAmount(Money.of(new BigDecimal("4.00")));
+        o.setItems(List.of());
+        o.setCreatedAt(Instant.parse("2026-01-02T03:04:05Z"));
+        o.setUpdatedAt(o.getCreatedAt());
+        return o;
+    }
+
+    @Test
+    void upsertsEveryOrder_stampedWithItsUpdatedAt() {
+        var created = order("CREATED");
+        var canceled = order("CANCELED");
+        canceled.setUpdatedAt(Instant.parse("2026-01-02T03:09:00.250Z"));
+        when(cassandra.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(created, canceled));
+
+        assertThat(backfill.run()).isEqualTo(2);
+
+        var rows = ArgumentCaptor.forClass(OrderByAccount.class);
+        var options = ArgumentCaptor.forClass(InsertOptions.class);
+        verify(cassandra, times(2)).insert(rows.capture(), options.capture());
+        assertThat(rows.getAllValues()).extracting(OrderByAccount::getStatus).containsExactly("CREATED", "CANCELED");
+        assertThat(rows.getAllValues().get(1).getTotalAmount()).isEqualTo(canceled.getTotalAmount());
+        assertThat(options.getAllValues()).extracting(InsertOptions::getTimestamp)
+                .containsExactly(1767323045000000L, 1767323340250000L);
+        assertThat(options.getAllValues()).noneMatch(InsertOptions::isIfNotExists);
+    }
+}
@@ -0,0 +1,199 @@
+package com.xulunh.orderservice.repository;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.cassandra.CassandraWriteTimeoutException;
+import org.springframework.data.cassandra.core.CassandraBatchOperations;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.cql.CqlOperations;
+import org.springframework.data.cassandra.core.cql.SessionCallback;
+import org.springframework.data.cassandra.core.cql.WriteOptions;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+class OrderRepositoryCustomImplTest {
+
+    private final CassandraOperations cassandra = mock(CassandraOperations.class);
+    private final CassandraBatchOperations batch = mock(CassandraBatchOperations.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OrderRepositoryCustomImpl repo = new OrderRepositoryCustomImpl(cassandra, registry);
+
+    @Test
+    void saveWithAccountIndex_writesBothTablesInOneBatch() {
+        when(cassandra.batchOps()).thenReturn(batch);
+        when(batch.insert(any(Object.class))).thenReturn(batch);
+        when(batch.insert(any(Object.class), any(WriteOptions.class))).thenReturn(batch);
+
+        var order = new Order();
+        order.setId(UUID.randomUUID());
+        order.setAccountEmail("buyer@example.com");
+        order.setStatus("CREATED");
+        order.setTotalAmount(Money.of(new BigDecimal("9.00")));
+        order.setItems(List.of());
+        order.setCreatedAt(Instant.now());
+        order.setUpdatedAt(order.getCreatedAt());
+
+        assertThat(repo.saveWithAccountIndex(order)).isSameAs(order);
+
+        verify(batch).insert(order);
+        var inserted = ArgumentCaptor.forClass(Object.class);
+        var options = ArgumentCaptor.forClass(WriteOptions.class);
+        verify(batch).insert(inserted.capture(), options.capture());
+        verify(batch).execute();
+        assertThat(options.getValue().getTimestamp()).isEqualTo(OrderWrites.timestamp(order));
+        var row = (OrderByAccount) inserted.getValue();
+        assertThat(row.getOrderId()).isEqualTo(order.getId());
+        assertThat(row.getAccountEmail()).isEqualTo("buyer@example.com");
+        assertThat(row.getCreatedAt()).isEqualTo(order.getCreatedAt());
+        assertThat(row.getStatus()).isEqualTo("CREATED");
+    }
+
+    private CqlSession session(boolean orderRowApplied, Row readBack) {
+        return session(orderRowApplied, readBack, false);
+    }
+
+    private CqlSession session(boolean orderRowApplied, Row readBack, boolean indexFails) {
+        var cql = mock(CqlOperations.class);
+        var session = mock(CqlSession.class);
+        when(cassandra.getCqlOperations()).thenReturn(cql);
+        when(cql.execute(any(SessionCallback.class)))
+                .thenAnswer(inv -> inv.<SessionCallback<?>>getArgument(0).doInSession(session));
+        when(session.prepare(anyString())).thenAnswer(inv -> {
+            var statement = mock(PreparedStatement.class);
+            var bound = mock(BoundStatement.class);
+            var rs = mock(ResultSet.class);
+            when(statement.bind(any(Object[].class))).thenReturn(bound);
+            when(session.execute(bound)).thenReturn(rs);
+            if (readBack != null && inv.<String>getArgument(0).equals(OrderWrites.STATUS)) {
+                when(session.execute(bound)).thenThrow(new CassandraWriteTimeoutException("timeout", "CAS", null));
+            }
+            if (indexFails && inv.<String>getArgument(0).startsWith("UPDATE orders_by_account")) {
+                when(session.execute(bound)).thenThrow(new DataAccessResourceFailureException("unavailable"));
+            }
+            when(rs.wasApplied()).thenReturn(!inv.<String>getArgument(0).contains(" IF ") || orderRowApplied);
+            return statement;
+        });
+        var serial = mock(ResultSet.class);
+        when(serial.one()).thenReturn(readBack);
+        when(session.execute(any(SimpleStatement.class))).thenReturn(serial);
+        return session;
+    }
+
+    private CqlSession session(boolean orderRowApplied) {
+        return session(orderRowApplied, null);
+    }
+
+    private static Row row(String status, Instant updatedAt) {
+        var row = mock(Row.class);
+        when(row.getString("status")).thenReturn(status);
+        when(row.getInstant("updated_at")).thenReturn(updatedAt);
+        return row;
+    }
+
+    private static Order completed() {
+        var order = new Order();
+        order.setId(UUID.randomUUID());
+        order.setAccountEmail("buyer@example.com");
+        order.setStatus("COMPLETED");
+        order.setCreatedAt(Instant.parse("2026-01-02T03:04:05Z"));
+        order.setUpdatedAt(Instant.parse("2026-01-02T03:05:00.000123Z"));
+        return order;
+    }
+
+    @Test
+    void updateStatus_isConditionalOnTheOrdersRow_thenFollowedByTheAccountIndex() {
+        var session = session(true);
+
+        assertThat(repo.updateStatus(completed(), "CREATED")).isTrue();
+
+        var prepared = ArgumentCaptor.forClass(String.class);
+        verify(session, times(2)).prepare(prepared.capture());
+        assertThat(prepared.getAllValues()).containsExactly(OrderWrites.STATUS, OrderWrites.INDEX_STATUS);
+        assertThat(OrderWrites.STATUS).endsWith("IF status = ?").doesNotContain("items");
+        verifyNoMoreInteractions(batch);
+    }
+
+    @Test
+    void updateStatus_notApplied_leavesTheAccountIndexAlone() {
+        var session = session(false);
+
+        assertThat(repo.updateStatus(completed(), "CREATED")).isFalse();
+
+        verify(session).prepare(OrderWrites.STATUS);
+        verify(session, never()).prepare(OrderWrites.INDEX_STATUS);
+    }
+
+    @Test
+    void updateStatus_timedOut_readsBackAtSerial_andSeesItsOwnWrite() {
+        var order = completed();
+        var session = session(true, row("COMPLETED", Instant.parse("2026-01-02T03:05:00Z")));
+
+        assertThat(repo.updateStatus(order, "CREATED")).isTrue();
+
+        var read = ArgumentCaptor.forClass(SimpleStatement.class);
+        verify(session).execute(read.capture());
+        assertThat(read.getValue().getQuery()).isEqualTo(OrderWrites.READ_BACK);
+        assertThat(read.getValue().getConsistencyLevel()).isEqualTo(ConsistencyLevel.SERIAL);
+        verify(session).prepare(OrderWrites.INDEX_STATUS);
+    }
+
+    @Test
+    void updateStatus_timedOut_rowStillInExpectedStatus_isNotApplied() {
+        var session = session(true, row("CREATED", Instant.parse("2026-01-02T03:04:05Z")));
+
+        assertThat(repo.updateStatus(completed(), "CREATED")).isFalse();
+        verify(session, never()).prepare(OrderWrites.INDEX_STATUS);
+    }
+
+    @Test
+    void updateStatus_timedOut_rowMovedOnSince_rethrowsTheTimeout() {
+        session(true, row("CANCELED", Instant.parse("2026-01-02T03:06:00Z")));
+
+        assertThatThrownBy(() -> repo.updateStatus(completed(), "CREATED")).isInstanceOf(CassandraWriteTimeoutException.class);
+    }
+
+    @Test
+    void updateStatus_indexWriteFails_afterTheTransitionApplied_stillReportsItApplied() {
+        var session = session(true, null, true);
+
+        assertThat(repo.updateStatus(completed(), "CREATED")).isTrue();
+
+        verify(session).prepare(OrderWrites.INDEX_STATUS);
+        assertThat(registry.counter("order.account.index.write.failures", "write", "status").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void statementValues_bindTheExpectedStatus_andStampIndexWritesWithUpdatedAt() {
+        var order = completed();
+
+        assertThat(OrderWrites.status(order, "CREATED"))
+                .containsExactly("COMPLETED", order.getUpdatedAt(), order.getId(), "CREATED");
+        assertThat(OrderWrites.STATUS).doesNotContain("USING TIMESTAMP");
+        assertThat(OrderWrites.indexStatus(order)).containsExactly(1767323100000123L, "COMPLETED", order.getUpdatedAt(),
+                "buyer@example.com", order.getCreatedAt(), order.getId());
+        assertThat(OrderWrites.INDEX_STATUS).startsWith("UPDATE orders_by_account USING TIMESTAMP ? SET");
+        assertThat(OrderWrites.INDEX_ITEMS).startsWith("UPDATE orders_by_account USING TIMESTAMP ? SET");
+    }
+}
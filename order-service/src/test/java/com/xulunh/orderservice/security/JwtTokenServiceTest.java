@@ -0,0 +1,47 @@
+package com.xulunh.orderservice.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenServiceTest {
+    private static final String SECRET = "change-me-32-chars-minimum-1234567890abcd";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final JwtTokenService service = new JwtTokenService(SECRET, 60, 100, registry);
+
+    @Test
+    void parse_verifiesOnceThenServesFromCache() {
+        var token = service.create("a@b.com", Map.of("uid", 1));
+
+        assertThat(service.parse(token).getSubject()).isEqualTo("a@b.com");
+        assertThat(service.parse(token).getSubject()).isEqualTo("a@b.com");
+
+        assertThat(registry.get("security.jwt.verify").timer().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void parse_rejectsTokenSignedWithAnotherKey() {
+        var other = new JwtTokenService("another-secret-32-chars-minimum-0987654321", 60, 100, new SimpleMeterRegistry());
+        var token = other.create("a@b.com", Map.of());
+
+        assertThatThrownBy(() -> service.parse(token)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> service.parse(token)).isInstanceOf(JwtException.class);
+        assertThat(registry.get("security.jwt.verify").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void parse_rejectsExpiredToken() {
+        var expired = new JwtTokenService(SECRET, -1, 100, new SimpleMeterRegistry());
+        var token = expired.create("a@b.com", Map.of());
+
+        assertThatThrownBy(() -> service.parse(token)).isInstanceOf(JwtException.class);
+    }
+}
@@ -0,0 +1,96 @@
+package com.xulunh.orderservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ItemFanOutTest {
+
+    private final ItemFanOut fanOut = new ItemFanOut(4, Duration.ofSeconds(2));
+
+    @AfterEach
+    void shutdown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    void invokeAll_runsLookupsConcurrently_andKeepsTaskOrder() {
+        var allStarted = new CountDownLatch(3);
+        Callable<String> a = () -> { allStarted.countDown(); allStarted.await(1, TimeUnit.SECONDS); return "a"; };
+        Callable<String> b = () -> { allStarted.countDown(); allStarted.await(1, TimeUnit.SECONDS); return "b"; };
+        Callable<String> c = () -> { allStarted.countDown(); allStarted.await(1, TimeUnit.SECONDS); return "c"; };
+
+        assertThat(fanOut.invokeAll(List.of(a, b, c))).containsExactly("a", "b", "c");
+        assertThat(allStarted.getCount()).isZero();
+    }
+
+    @Test
+    void invokeAll_capsParallelism() {
+        var limited = new ItemFanOut(2, Duration.ofSeconds(2));
+        var inFlight = new AtomicInteger();
+        var peak = new AtomicInteger();
+        Callable<Integer> task = () -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return 1;
+        };
+        try {
+            assertThat(limited.invokeAll(List.of(task, task, task, task, task))).hasSize(5);
+            assertThat(peak.get()).isLessThanOrEqualTo(2);
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    @Test
+    void invokeAll_rethrowsFirstFailure_andCancelsSiblings() {
+        var interrupted = new CountDownLatch(1);
+        Callable<String> slow = () -> {
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return "slow";
+        };
+        Callable<String> failing = () -> { throw new ResourceAccessException("item-service down"); };
+
+        assertThatThrownBy(() -> fanOut.invokeAll(List.of(slow, failing)))
+                .isInstanceOf(ResourceAccessException.class);
+        assertThat(awaitQuietly(interrupted)).isTrue();
+    }
+
+    @Test
+    void invokeAll_failsWhenDeadlineExceeded() {
+        var tight = new ItemFanOut(4, Duration.ofMillis(50));
+        Callable<String> slow = () -> { Thread.sleep(5_000); return "slow"; };
+        try {
+            assertThatThrownBy(() -> tight.invokeAll(List.of(slow, slow)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("deadline");
+        } finally {
+            tight.shutdown();
+        }
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
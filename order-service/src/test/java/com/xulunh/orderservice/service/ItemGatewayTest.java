@@ -0,0 +1,119 @@
+package com.xulunh.orderservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ItemGatewayTest {
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+    private final ItemFanOut fanOut = new ItemFanOut(4, Duration.ofSeconds(2));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ItemNearCache cache = new ItemNearCache(registry, 100, Duration.ofMinutes(5));
+    private final ItemGateway gateway = new ItemGateway(restTemplate, "http://items", fanOut, 100, cache, registry);
+
+    @AfterEach
+    void shutdown() {
+        fanOut.shutdown();
+    }
+
+    private static String batch(String... upcs) {
+        var items = new StringBuilder();
+        for (var upc : upcs) {
+            if (!items.isEmpty()) items.append(',');
+            items.append("{\"id\":\"id-").append(upc).append("\",\"upc\":\"").append(upc)
+                    .append("\",\"name\":\"N\",\"unitPrice\":1.50,\"availableUnits\":3}");
+        }
+        return "{\"items\":[" + items + "],\"missing\":[]}";
+    }
+
+    @Test
+    void getByUpcs_servesRepeatLookupsFromCache() {
+        server.expect(once(), requestTo("http://items/api/v1/items/by-upcs"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().json("{\"upcs\":[\"U1\",\"U2\"]}"))
+                .andRespond(withSuccess(batch("U1", "U2"), MediaType.APPLICATION_JSON));
+
+        assertThat(gateway.getByUpcs(List.of("U1", "U2"))).containsOnlyKeys("U1", "U2");
+        assertThat(gateway.getByUpcs(List.of("U2", "U1"))).containsOnlyKeys("U1", "U2");
+        server.verify();
+    }
+
+    @Test
+    void getByUpcs_fetchesOnlyMisses_andBypassSkipsCache() {
+        cache.put(cachedItem("U1"));
+        server.expect(once(), requestTo("http://items/api/v1/items/by-upcs"))
+                .andExpect(content().json("{\"upcs\":[\"U2\"]}"))
+                .andRespond(withSuccess(batch("U2"), MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo("http://items/api/v1/items/by-upcs"))
+                .andExpect(content().json("{\"upcs\":[\"U1\",\"U2\"]}"))
+                .andRespond(withSuccess(batch("U1", "U2"), MediaType.APPLICATION_JSON));
+
+        assertThat(gateway.getByUpcs(List.of("U1", "U2"))).containsOnlyKeys("U1", "U2");
+        assertThat(gateway.getByUpcs(List.of("U1", "U2"), true).get("U1").availableUnits).isEqualTo(3);
+        server.verify();
+    }
+
+    @Test
+    void invalidate_forcesRefetch() {
+        server.expect(requestTo("http://items/api/v1/items/by-upcs"))
+                .andRespond(withSuccess(batch("U1"), MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://items/api/v1/items/by-upcs"))
+                .andRespond(withSuccess(batch("U1"), MediaType.APPLICATION_JSON));
+
+        gateway.getByUpcs(List.of("U1"));
+        cache.invalidate("U1");
+        gateway.getByUpcs(List.of("U1"));
+        server.verify();
+    }
+
+    @Test
+    void remoteCalls_areTimedPerOperationAndOutcome() {
+        server.expect(requestTo("http://items/api/v1/items/by-upc?upc=U1"))
+                .andRespond(withSuccess("{\"id\":\"id-U1\",\"upc\":\"U1\"}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://items/api/v1/items/inventory/reservations"))
+                .andRespond(withStatus(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"reserved\":false,\"insufficient\":[\"i1\"]}"));
+        server.expect(requestTo("http://items/api/v1/items/inventory/releases"))
+                .andRespond(withServerError());
+
+        gateway.getByUpc("U1");
+        gateway.getByUpc("U1");
+        assertThat(gateway.reserve(List.of(new ItemGateway.InventoryLine("i1", 1))).reserved).isFalse();
+        assertThatThrownBy(() -> gateway.release(List.of(new ItemGateway.InventoryLine("i1", 1))))
+                .isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(registry.get("item.gateway.requests").tags("operation", "by-upc", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("item.gateway.requests").tags("operation", "reserve", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("item.gateway.requests").tags("operation", "release", "outcome", "error").timer().count()).isEqualTo(1);
+        server.verify();
+    }
+
+    private static ItemGateway.ItemDto cachedItem(String upc) {
+        var d = new ItemGateway.ItemDto();
+        d.id = "cached-" + upc;
+        d.upc = upc;
+        d.availableUnits = 0;
+        return d;
+    }
+}
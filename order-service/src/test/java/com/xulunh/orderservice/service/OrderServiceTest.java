@@ -1,6 +1,8 @@
 package com.xulunh.orderservice.service;
 
+import com.xulunh.orderservice.domain.Money;
 import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderByAccount;
 import com.xulunh.orderservice.domain.OrderItem;
 import com.xulunh.orderservice.dto.OrderCreateRequest;
 import com.xulunh.orderservice.dto.OrderItemRequest;
@@ -9,20 +11,32 @@ import com.xulunh.orderservice.events.OrderEvents;
 import com.xulunh.orderservice.repository.OrderRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.cassandra.CassandraWriteTimeoutException;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class OrderServiceTest {
@@ -50,7 +64,7 @@ class OrderServiceTest {
         d.id = id;
         d.upc = upc;
         d.name = name;
-        d.unitPrice = new BigDecimal(price);
+        d.unitPrice = Money.of(new BigDecimal(price));
         d.availableUnits = 100;
         return d;
     }
@@ -58,9 +72,10 @@ class OrderServiceTest {
     @Test
     void create_success_buildsItems_andSaves() {
         setAuth("buyer@example.com");
-        when(items.getByUpc("U1")).thenReturn(itemDto("i1", "U1", "N1", "3.50"));
-        when(items.getByUpc("U2")).thenReturn(itemDto("i2", "U2", "N2", "1.25"));
-        when(repo.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(items.getByUpcs(List.of("U1", "U2"))).thenReturn(Map.of(
+                "U1", itemDto("i1", "U1", "N1", "3.50"),
+                "U2", itemDto("i2", "U2", "N2", "1.25")));
+        when(repo.saveWithAccountIndex(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
 
         var req = new OrderCreateRequest(List.of(
                 new OrderItemRequest("U1", 2),
@@ -69,11 +84,70 @@ class OrderServiceTest {
         var res = service.create(req);
 
         ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
-        verify(repo).save(captor.capture());
+        verify(repo).saveWithAccountIndex(captor.capture());
         assertThat(captor.getValue().getAccountEmail()).isEqualTo("buyer@example.com");
         assertThat(captor.getValue().getItems()).hasSize(2);
-        assertThat(res.totalAmount()).isEqualByComparingTo(new BigDecimal("3.50").multiply(BigDecimal.valueOf(2))
-                .add(new BigDecimal("1.25").multiply(BigDecimal.valueOf(4))));
+        assertThat(res.totalAmount()).isEqualTo(Money.of(new BigDecimal("12.00")));
+        verify(items, never()).getByUpc(anyString());
+        verify(events).publishCreated(captor.getValue());
+    }
+
+    @Test
+    void create_throwsWhenUpcMissingFromBatch() {
+        setAuth("buyer@example.com");
+        when(items.getByUpcs(List.of("U1", "NOPE"))).thenReturn(Map.of("U1", itemDto("i1", "U1", "N1", "3.50")));
+
+        var req = new OrderCreateRequest(List.of(
+                new OrderItemRequest("U1", 1),
+                new OrderItemRequest("NOPE", 1)
+        ));
+        assertThatThrownBy(() -> service.create(req))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("NOPE");
+        verify(repo, never()).saveWithAccountIndex(any());
+    }
+
+    @Test
+    void getByAccountEmail_readsAccountPartition() {
+        var row = new OrderByAccount();
+        row.setOrderId(UUID.randomUUID());
+        row.setAccountEmail("buyer@example.com");
+        row.setStatus("CREATED");
+        row.setTotalAmount(Money.of(new BigDecimal("4.00")));
+        when(repo.findByAccountEmail("buyer@example.com")).thenReturn(List.of(row));
+
+        var res = service.getByAccountEmail("buyer@example.com");
+        assertThat(res).singleElement().satisfies(r -> {
+            assertThat(r.id()).isEqualTo(row.getOrderId());
+            assertThat(r.items()).isEmpty();
+        });
+        verify(repo, never()).findAll();
+    }
+
+    @Test
+    void getPage_roundTripsOpaquePagingState() {
+        var state = ByteBuffer.wrap(new byte[]{1, 2, 3, 4});
+        var token = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[]{1, 2, 3, 4});
+        var order = new Order();
+        order.setId(UUID.randomUUID());
+        var next = CassandraPageRequest.of(PageRequest.of(1, 2), ByteBuffer.wrap(new byte[]{9, 9}));
+        when(repo.findAll(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(order), next, true));
+
+        var page = service.getPage(2, token);
+
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(repo).findAll(captor.capture());
+        var requested = (CassandraPageRequest) captor.getValue();
+        assertThat(requested.getPageSize()).isEqualTo(2);
+        assertThat(requested.getPagingState()).isEqualTo(state);
+        assertThat(page.items()).hasSize(1);
+        assertThat(Base64.getUrlDecoder().decode(page.pagingState())).containsExactly(9, 9);
+    }
+
+    @Test
+    void getPage_lastPageHasNoPagingState() {
+        when(repo.findAll(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(), CassandraPageRequest.first(10), false));
+        assertThat(service.getPage(10, null).pagingState()).isNull();
     }
 
     @Test
@@ -83,7 +157,7 @@ class OrderServiceTest {
         o.setId(id);
         o.setStatus("CREATED");
         o.setAccountEmail("owner@example.com");
-        when(repo.findById(id)).thenReturn(Optional.of(o));
+        when(repo.findOrderById(id)).thenReturn(Optional.of(o));
 
         setAuth("intruder@example.com");
         assertThatThrownBy(() -> service.update(id, new OrderUpdateRequest(List.of())))
@@ -97,18 +171,48 @@ class OrderServiceTest {
         o.setId(id);
         o.setStatus("CREATED");
         var it = new OrderItem();
+        it.setItemId("i1");
         it.setUpc("UPC1");
         it.setQuantity(5);
         o.setItems(List.of(it));
 
-        when(repo.findById(id)).thenReturn(Optional.of(o));
-        var dto = itemDto("i1", "UPC1", "N", "1.00");
-        dto.availableUnits = 3;
-        when(items.getByUpc("UPC1")).thenReturn(dto);
+        when(repo.findOrderById(id)).thenReturn(Optional.of(o));
+        var shortage = new ItemGateway.ReservationResult();
+        shortage.reserved = false;
+        shortage.insufficient = List.of("i1");
+        when(items.reserve(List.of(new ItemGateway.InventoryLine("i1", 5)))).thenReturn(shortage);
 
         assertThatThrownBy(() -> service.complete(id))
                 .isInstanceOf(IllegalStateException.class)
-                .hasMessageContaining("Insufficient stock");
+                .hasMessageContaining("Insufficient stock for UPC UPC1");
+        verify(repo, never()).updateStatus(any(), any());
+    }
+
+    @Test
+    void complete_reservesWholeOrderInOneCall_andSaves() {
+        var id = UUID.randomUUID();
+        var o = new Order();
+        o.setId(id);
+        o.setStatus("CREATED");
+        var a = new OrderItem();
+        a.setItemId("i1");
+        a.setQuantity(2);
+        var b = new OrderItem();
+        b.setItemId("i2");
+        b.setQuantity(1);
+        o.setItems(List.of(a, b));
+
+        when(repo.findOrderById(id)).thenReturn(Optional.of(o));
+        when(repo.updateStatus(o, "CREATED")).thenReturn(true);
+        var ok = new ItemGateway.ReservationResult();
+        ok.reserved = true;
+        when(items.reserve(anyList())).thenReturn(ok);
+
+        var res = service.complete(id);
+        assertThat(res.status()).isEqualTo("COMPLETED");
+        verify(repo, never()).saveWithAccountIndex(any());
+        verify(events).publishCompleted(o);
+        verify(items).reserve(List.of(new ItemGateway.InventoryLine("i1", 2), new ItemGateway.InventoryLine("i2", 1)));
     }
 
     @Test
@@ -124,14 +228,140 @@ class OrderServiceTest {
         o.setItems(List.of(it));
         o.setUpdatedAt(Instant.now());
 
-        when(repo.findById(id)).thenReturn(Optional.of(o));
-        when(repo.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(repo.findOrderById(id)).thenReturn(Optional.of(o));
+        when(repo.updateStatus(o, "COMPLETED")).thenReturn(true);
 
         var res = service.cancel(id);
         assertThat(res.status()).isEqualTo("CANCELED");
-        verify(items).adjustInventory("i1", 2);
-        verify(events).publishCancelled(id);
+        verify(items).release(List.of(new ItemGateway.InventoryLine("i1", 2)));
+        verify(events).publishCancelled(o);
     }
-}
 
+    private static Order order(UUID id, String status) {
+        var it = new OrderItem();
+        it.setItemId("i1");
+        it.setUpc("U1");
+        it.setName("N1");
+        it.setUnitPrice(Money.of(new BigDecimal("2.00")));
+        it.setQuantity(2);
+        var o = new Order();
+        o.setId(id);
+        o.setAccountEmail("owner@example.com");
+        o.setStatus(status);
+        o.setItems(List.of(it));
+        o.setTotalAmount(Money.of(new BigDecimal("4.00")));
+        return o;
+    }
+
+    @Test
+    void complete_losingTheRaceToCancel_releasesReservation() {
+        var id = UUID.randomUUID();
+        when(repo.findOrderById(id)).thenReturn(Optional.of(order(id, "CREATED")));
+        var ok = new ItemGateway.ReservationResult();
+        ok.reserved = true;
+        when(items.reserve(anyList())).thenReturn(ok);
+        when(repo.updateStatus(any(Order.class), eq("CREATED"))).thenReturn(false);
+
+        assertThatThrownBy(() -> service.complete(id))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Order not in CREATED status");
+        verify(items).release(List.of(new ItemGateway.InventoryLine("i1", 2)));
+        verify(events, never()).publishCompleted(any());
+    }
+
+    @Test
+    void complete_writeFailure_propagates_andKeepsReservation() {
+        var id = UUID.randomUUID();
+        when(repo.findOrderById(id)).thenReturn(Optional.of(order(id, "CREATED")));
+        var ok = new ItemGateway.ReservationResult();
+        ok.reserved = true;
+        when(items.reserve(anyList())).thenReturn(ok);
+        when(repo.updateStatus(any(Order.class), eq("CREATED"))).thenThrow(new CassandraWriteTimeoutException("timeout", "CAS", null));
+
+        assertThatThrownBy(() -> service.complete(id)).isInstanceOf(CassandraWriteTimeoutException.class);
+        verify(items, never()).release(anyList());
+        verify(events, never()).publishCompleted(any());
+    }
+
+    @Test
+    void cancel_afterLosingTheRaceToComplete_reReadsAndReleasesStock() {
+        var id = UUID.randomUUID();
+        when(repo.findOrderById(id)).thenReturn(Optional.of(order(id, "CREATED")), Optional.of(order(id, "COMPLETED")));
+        when(repo.updateStatus(any(Order.class), eq("CREATED"))).thenReturn(false);
+        when(repo.updateStatus(any(Order.class), eq("COMPLETED"))).thenReturn(true);
+
+        var res = service.cancel(id);
+
+        assertThat(res.status()).isEqualTo("CANCELED");
+        verify(items).release(List.of(new ItemGateway.InventoryLine("i1", 2)));
+        verify(events).publishCancelled(any());
+    }
+
+    @Test
+    void cancel_fromCreated_releasesNothing() {
+        var id = UUID.randomUUID();
+        when(repo.findOrderById(id)).thenReturn(Optional.of(order(id, "CREATED")));
+        when(repo.updateStatus(any(Order.class), eq("CREATED"))).thenReturn(true);
+
+        assertThat(service.cancel(id).status()).isEqualTo("CANCELED");
+        verify(items, never()).release(any());
+    }
+
+    @Test
+    void update_withSameItems_writesOnlyStatusColumns() {
+        var id = UUID.randomUUID();
+        setAuth("owner@example.com");
+        when(repo.findOrderById(id)).thenReturn(Optional.of(order(id, "CREATED")));
+        when(items.getByUpcs(List.of("U1"))).thenReturn(Map.of("U1", itemDto("i1", "U1", "N1", "2.00")));
+        when(repo.updateStatus(any(Order.class), eq("CREATED"))).thenReturn(true);
+
+        service.update(id, new OrderUpdateRequest(List.of(new OrderItemRequest("U1", 2))));
+
+        verify(repo).updateStatus(any(Order.class), eq("CREATED"));
+        verify(repo, never()).updateItems(any(), any());
+    }
+
+    @Test
+    void update_withChangedItems_rewritesItems_unlessNoLongerCreated() {
+        var id = UUID.randomUUID();
+        setAuth("owner@example.com");
+        when(repo.findOrderById(id)).thenReturn(Optional.of(order(id, "CREATED")));
+        when(items.getByUpcs(List.of("U1"))).thenReturn(Map.of("U1", itemDto("i1", "U1", "N1", "2.00")));
+        when(repo.updateItems(any(Order.class), eq("CREATED"))).thenReturn(false);
+
+        assertThatThrownBy(() -> service.update(id, new OrderUpdateRequest(List.of(new OrderItemRequest("U1", 5)))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Only orders in CREATED status");
+        verify(repo, never()).updateStatus(any(), any());
+        verify(events, never()).publishUpdated(any());
+    }
 
+    @Test
+    void touch_movesUpdatedAtPastTheStoredValue_evenWhenThisClockLags() {
+        var o = new Order();
+        var ahead = Instant.now().plusSeconds(60).truncatedTo(ChronoUnit.MILLIS);
+        o.setUpdatedAt(ahead);
+
+        OrderService.touch(o);
+        assertThat(o.getUpdatedAt()).isEqualTo(ahead.plusMillis(1));
+
+        o.setUpdatedAt(Instant.parse("2026-01-02T03:04:05Z"));
+        OrderService.touch(o);
+        assertThat(o.getUpdatedAt()).isAfter(Instant.now().minusSeconds(5));
+        assertThat(o.getUpdatedAt().getNano() % 1_000_000).isZero();
+    }
+
+    @Test
+    void republishIfCancelled_announcesOnlyACancelledOrderAgain() {
+        var cancelled = UUID.randomUUID();
+        var completed = UUID.randomUUID();
+        when(repo.findOrderById(cancelled)).thenReturn(Optional.of(order(cancelled, "CANCELED")));
+        when(repo.findOrderById(completed)).thenReturn(Optional.of(order(completed, "COMPLETED")));
+
+        assertThat(service.republishIfCancelled(cancelled)).isTrue();
+        assertThat(service.republishIfCancelled(completed)).isFalse();
+
+        verify(events).publishCancelled(argThat(o -> o.getId().equals(cancelled)));
+        verifyNoMoreInteractions(events);
+    }
+}
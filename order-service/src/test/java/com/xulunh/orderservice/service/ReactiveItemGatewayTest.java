@@ -0,0 +1,98 @@
+package com.xulunh.orderservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveItemGatewayTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ItemNearCache cache = new ItemNearCache(registry, 100, Duration.ofMinutes(5));
+    private final Queue<ClientRequest> requests = new ConcurrentLinkedQueue<>();
+
+    private ReactiveItemGateway gateway(Function<ClientRequest, Mono<ClientResponse>> server, int batchSize, Duration deadline) {
+        var client = WebClient.builder().baseUrl("http://items").exchangeFunction(req -> {
+            requests.add(req);
+            return server.apply(req);
+        }).build();
+        return new ReactiveItemGateway(client, cache, registry, batchSize, 4, deadline);
+    }
+
+    private static Mono<ClientResponse> json(HttpStatus status, String body) {
+        return Mono.just(ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(body).build());
+    }
+
+    private static String batch(String... upcs) {
+        var items = new StringBuilder();
+        for (var upc : upcs) {
+            if (!items.isEmpty()) items.append(',');
+            items.append("{\"id\":\"id-").append(upc).append("\",\"upc\":\"").append(upc).append("\",\"unitPrice\":1.50}");
+        }
+        return "{\"items\":[" + items + "],\"missing\":[]}";
+    }
+
+    @Test
+    void getByUpcs_chunksMisses_andServesRepeatsFromCache() {
+        var gateway = gateway(req -> json(HttpStatus.OK, batch("U1", "U2", "U3")), 2, Duration.ofSeconds(2));
+
+        StepVerifier.create(gateway.getByUpcs(List.of("U1", "U2", "U3")))
+                .assertNext(byUpc -> assertThat(byUpc).containsOnlyKeys("U1", "U2", "U3"))
+                .verifyComplete();
+        assertThat(requests).hasSize(2);
+
+        StepVerifier.create(gateway.getByUpcs(List.of("U3", "U1")))
+                .assertNext(byUpc -> assertThat(byUpc).containsOnlyKeys("U1", "U3"))
+                .verifyComplete();
+        assertThat(requests).hasSize(2);
+        assertThat(registry.get("item.gateway.requests").tags("operation", "by-upcs", "outcome", "success").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void getByUpcs_slowItemService_failsAtDeadline() {
+        var gateway = gateway(req -> json(HttpStatus.OK, batch("U1")).delayElement(Duration.ofSeconds(5)), 100, Duration.ofMillis(100));
+
+        StepVerifier.create(gateway.getByUpcs(List.of("U1")))
+                .expectErrorMessage("Item lookups exceeded deadline of 100ms")
+                .verify(Duration.ofSeconds(2));
+        assertThat(registry.get("item.gateway.requests").tags("operation", "by-upcs", "outcome", "cancelled").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reserve_conflict_comesBackAsNotReserved() {
+        var gateway = gateway(req -> json(HttpStatus.CONFLICT, "{\"reserved\":false,\"insufficient\":[\"i1\"]}"), 100, Duration.ofSeconds(2));
+
+        StepVerifier.create(gateway.reserve(List.of(new ItemGateway.InventoryLine("i1", 5))))
+                .assertNext(res -> {
+                    assertThat(res.reserved).isFalse();
+                    assertThat(res.insufficient).containsExactly("i1");
+                })
+                .verifyComplete();
+        assertThat(requests.peek().url().getPath()).isEqualTo("/api/v1/items/inventory/reservations");
+    }
+
+    @Test
+    void release_serverError_isTimedAsError() {
+        var gateway = gateway(req -> Mono.just(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build()), 100, Duration.ofSeconds(2));
+
+        StepVerifier.create(gateway.release(List.of(new ItemGateway.InventoryLine("i1", 1))))
+                .expectError()
+                .verify();
+        assertThat(registry.get("item.gateway.requests").tags("operation", "release", "outcome", "error").timer().count()).isEqualTo(1);
+    }
+}
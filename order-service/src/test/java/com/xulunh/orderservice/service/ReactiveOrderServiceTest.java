@@ -0,0 +1,196 @@
+package com.xulunh.orderservice.service;
+
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.domain.Order;
+import com.xulunh.orderservice.domain.OrderItem;
+import com.xulunh.orderservice.dto.OrderCreateRequest;
+import com.xulunh.orderservice.dto.OrderItemRequest;
+import com.xulunh.orderservice.dto.OrderUpdateRequest;
+import com.xulunh.orderservice.events.OrderEvents;
+import com.xulunh.orderservice.repository.ReactiveOrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReactiveOrderServiceTest {
+
+    private final ReactiveOrderRepository repo = mock(ReactiveOrderRepository.class);
+    private final ReactiveItemGateway items = mock(ReactiveItemGateway.class);
+    private final OrderEvents events = mock(OrderEvents.class);
+    private final ReactiveOrderService service = new ReactiveOrderService(repo, items, events);
+
+    private static <T> Mono<T> as(String email, Mono<T> call) {
+        return call.contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of())));
+    }
+
+    private static ItemGateway.ItemDto itemDto(String id, String upc, String price) {
+        var d = new ItemGateway.ItemDto();
+        d.id = id;
+        d.upc = upc;
+        d.name = "N-" + upc;
+        d.unitPrice = Money.of(new BigDecimal(price));
+        return d;
+    }
+
+    private static Order order(String status, String email) {
+        var item = new OrderItem();
+        item.setItemId("i1");
+        item.setUpc("U1");
+        item.setUnitPrice(Money.of(new BigDecimal("2.00")));
+        item.setQuantity(3);
+        var o = new Order();
+        o.setId(UUID.randomUUID());
+        o.setAccountEmail(email);
+        o.setStatus(status);
+        o.setItems(List.of(item));
+        o.setTotalAmount(Money.of(new BigDecimal("6.00")));
+        o.setCreatedAt(Instant.now());
+        return o;
+    }
+
+    @Test
+    void create_pricesItemsForTheCaller_andSaves() {
+        when(items.getByUpcs(List.of("U1", "U2"))).thenReturn(Mono.just(Map.of(
+                "U1", itemDto("i1", "U1", "3.50"), "U2", itemDto("i2", "U2", "1.25"))));
+        when(repo.saveWithAccountIndex(any(Order.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        var req = new OrderCreateRequest(List.of(new OrderItemRequest("U1", 2), new OrderItemRequest("U2", 4)));
+        StepVerifier.create(as("buyer@example.com", service.create(req)))
+                .assertNext(res -> {
+                    assertThat(res.accountEmail()).isEqualTo("buyer@example.com");
+                    assertThat(res.status()).isEqualTo("CREATED");
+                    assertThat(res.totalAmount()).isEqualTo(Money.of(new BigDecimal("12.00")));
+                    assertThat(res.items()).hasSize(2);
+                })
+                .verifyComplete();
+        verify(events, timeout(2000)).publishCreated(any(Order.class));
+    }
+
+    @Test
+    void create_withoutAuthentication_fails() {
+        var req = new OrderCreateRequest(List.of(new OrderItemRequest("U1", 1)));
+        StepVerifier.create(service.create(req))
+                .expectErrorMessage("Unauthenticated")
+                .verify();
+        verifyNoInteractions(items, repo);
+    }
+
+    @Test
+    void create_unknownUpc_fails() {
+        when(items.getByUpcs(List.of("U9"))).thenReturn(Mono.just(Map.of()));
+        var req = new OrderCreateRequest(List.of(new OrderItemRequest("U9", 1)));
+        StepVerifier.create(as("buyer@example.com", service.create(req)))
+                .expectErrorMessage("Item U9 not found")
+                .verify();
+        verify(repo, never()).saveWithAccountIndex(any());
+    }
+
+    @Test
+    void get_missingOrder_errors() {
+        var id = UUID.randomUUID();
+        when(repo.findById(id)).thenReturn(Mono.empty());
+        StepVerifier.create(service.get(id)).expectError(NoSuchElementException.class).verify();
+    }
+
+    @Test
+    void update_byAnotherAccount_isForbidden() {
+        var o = order("CREATED", "owner@example.com");
+        when(repo.findById(o.getId())).thenReturn(Mono.just(o));
+        var req = new OrderUpdateRequest(List.of(new OrderItemRequest("U1", 1)));
+        StepVerifier.create(as("other@example.com", service.update(o.getId(), req)))
+                .expectErrorMessage("Forbidden")
+                .verify();
+        verify(repo, never()).saveWithAccountIndex(any());
+    }
+
+    @Test
+    void complete_insufficientStock_reportsUpc() {
+        var o = order("CREATED", "owner@example.com");
+        when(repo.findById(o.getId())).thenReturn(Mono.just(o));
+        var shortage = new ItemGateway.ReservationResult();
+        shortage.insufficient = List.of("i1");
+        when(items.reserve(List.of(new ItemGateway.InventoryLine("i1", 3)))).thenReturn(Mono.just(shortage));
+
+        StepVerifier.create(service.complete(o.getId()))
+                .expectErrorMessage("Insufficient stock for UPC U1")
+                .verify();
+        verify(repo, never()).updateStatus(any(), any());
+    }
+
+    @Test
+    void complete_saveFailure_keepsReservation_asTheOutcomeIsUnknown() {
+        var o = order("CREATED", "owner@example.com");
+        when(repo.findById(o.getId())).thenReturn(Mono.just(o));
+        var ok = new ItemGateway.ReservationResult();
+        ok.reserved = true;
+        when(items.reserve(any())).thenReturn(Mono.just(ok));
+        when(items.release(any())).thenReturn(Mono.empty());
+        when(repo.updateStatus(any(), any())).thenReturn(Mono.error(new IllegalStateException("write timeout")));
+
+        StepVerifier.create(service.complete(o.getId()))
+                .expectErrorMessage("write timeout")
+                .verify();
+        verify(items, never()).release(any());
+    }
+
+    @Test
+    void cancel_completedOrder_releasesStock_andPublishes() {
+        var o = order("COMPLETED", "owner@example.com");
+        when(repo.findById(o.getId())).thenReturn(Mono.just(o));
+        when(items.release(any())).thenReturn(Mono.empty());
+        when(repo.updateStatus(o, "COMPLETED")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(service.cancel(o.getId()))
+                .assertNext(res -> assertThat(res.status()).isEqualTo("CANCELED"))
+                .verifyComplete();
+        verify(items).release(List.of(new ItemGateway.InventoryLine("i1", 3)));
+        verify(events, timeout(2000)).publishCancelled(o);
+    }
+
+    @Test
+    void complete_losingTheRaceToCancel_releasesReservation() {
+        var o = order("CREATED", "owner@example.com");
+        when(repo.findById(o.getId())).thenReturn(Mono.just(o));
+        var ok = new ItemGateway.ReservationResult();
+        ok.reserved = true;
+        when(items.reserve(any())).thenReturn(Mono.just(ok));
+        when(items.release(any())).thenReturn(Mono.empty());
+        when(repo.updateStatus(o, "CREATED")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(service.complete(o.getId()))
+                .expectErrorMessage("Order not in CREATED status")
+                .verify();
+        verify(items).release(List.of(new ItemGateway.InventoryLine("i1", 3)));
+    }
+
+    @Test
+    void cancel_afterLosingTheRaceToComplete_reReadsAndReleasesStock() {
+        var stale = order("CREATED", "owner@example.com");
+        var current = order("COMPLETED", "owner@example.com");
+        current.setId(stale.getId());
+        when(repo.findById(stale.getId())).thenReturn(Mono.just(stale), Mono.just(current));
+        when(repo.updateStatus(any(), eq("CREATED"))).thenReturn(Mono.just(false));
+        when(repo.updateStatus(any(), eq("COMPLETED"))).thenReturn(Mono.just(true));
+        when(items.release(any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.cancel(stale.getId()))
+                .assertNext(res -> assertThat(res.status()).isEqualTo("CANCELED"))
+                .verifyComplete();
+        verify(items).release(List.of(new ItemGateway.InventoryLine("i1", 3)));
+    }
+}
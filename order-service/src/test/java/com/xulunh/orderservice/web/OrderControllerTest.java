@@ -0,0 +1,108 @@
+package com.xulunh.orderservice.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.xulunh.orderservice.domain.Money;
+import com.xulunh.orderservice.dto.OrderPage;
+import com.xulunh.orderservice.dto.OrderResponse;
+import com.xulunh.orderservice.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class OrderControllerTest {
+
+    private final OrderService service = mock(OrderService.class);
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new OrderController(service, mapper, Duration.ofMinutes(30))).build();
+
+    private static OrderResponse order(String email) {
+        return new OrderResponse(UUID.randomUUID(), email, "CREATED", Money.of(new BigDecimal("2.00")), List.of(), null, null);
+    }
+
+    @Test
+    void getOrders_withoutPagingParams_keepsFullListResponse() throws Exception {
+        when(service.getAll()).thenReturn(List.of(order("a@b.com")));
+        mvc.perform(get("/api/v1/orders"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].accountEmail").value("a@b.com"));
+        verify(service, never()).getPage(anyInt(), any());
+    }
+
+    @Test
+    void getOrders_withSize_returnsPageAndPagingState() throws Exception {
+        when(service.getPage(2, "abc")).thenReturn(new OrderPage(List.of(order("a@b.com")), "next"));
+        mvc.perform(get("/api/v1/orders").param("size", "2").param("pagingState", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].accountEmail").value("a@b.com"))
+                .andExpect(jsonPath("$.pagingState").value("next"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamByAccountEmail_writesOneOrderPerLine() throws Exception {
+        doAnswer(inv -> {
+            Consumer<OrderResponse> sink = inv.getArgument(1);
+            sink.accept(order("a@b.com"));
+            sink.accept(order("a@b.com"));
+            return null;
+        }).when(service).streamByAccountEmail(eq("a@b.com"), any(Consumer.class));
+
+        var started = mvc.perform(get("/api/v1/orders/by-accountEmail").param("accountEmail", "a@b.com")
+                        .accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        var body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        var lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(mapper.readTree(lines[1]).get("accountEmail").asText()).isEqualTo("a@b.com");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamAll_runsUnderTheBoundExportTimeout() {
+        doAnswer(inv -> {
+            Consumer<OrderResponse> sink = inv.getArgument(0);
+            for (int i = 0; i < 3; i++) sink.accept(order("a@b.com"));
+            return null;
+        }).when(service).streamAll(any(Consumer.class));
+
+        new ApplicationContextRunner()
+                .withInitializer(ctx -> ctx.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withBean(OrderService.class, () -> service)
+                .withBean(ObjectMapper.class, () -> mapper)
+                .withUserConfiguration(OrderController.class)
+                .withPropertyValues("order.export.timeout=2h")
+                .run(ctx -> {
+                    var mvc = MockMvcBuilders.standaloneSetup(ctx.getBean(OrderController.class)).build();
+                    var started = mvc.perform(get("/api/v1/orders").accept("application/x-ndjson"))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+                    // set by the export itself; the container default applies to every other request
+                    assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(2).toMillis());
+                    var body = mvc.perform(asyncDispatch(started))
+                            .andExpect(status().isOk())
+                            .andReturn().getResponse().getContentAsString();
+                    assertThat(body.lines()).hasSize(3);
+                });
+    }
+}
@@ -1,18 +1,33 @@
 package com.xulunh.paymentservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class RestClientConfig {
     @Bean
-    RestTemplate restTemplate(RestTemplateBuilder builder) {
+    RestTemplate restTemplate(RestTemplateBuilder builder, ClientHttpRequestFactory interServiceRequestFactory) {
         return builder
+                .requestFactory(() -> interServiceRequestFactory)
                 .additionalInterceptors((request, body, execution) -> {
                     var attrs = RequestContextHolder.getRequestAttributes();
                     if (attrs instanceof ServletRequestAttributes sra) {
@@ -25,4 +40,47 @@ public class RestClientConfig {
                 })
                 .build();
     }
-}
\ No newline at end of file
+
+    // Pooled keep-alive client for calls to other services. With http.client.http2=true the JDK client is used
+    // instead; it multiplexes requests over one connection per host when the peer speaks HTTP/2.
+    @Bean
+    ClientHttpRequestFactory interServiceRequestFactory(MeterRegistry registry,
+                                                        @Value("${http.client.max-total:200}") int maxTotal,
+                                                        @Value("${http.client.max-per-route:50}") int maxPerRoute,
+                                                        @Value("${http.client.connect-timeout:1s}") Duration connectTimeout,
+                                                        @Value("${http.client.read-timeout:5s}") Duration readTimeout,
+                                                        @Value("${http.client.connection-request-timeout:1s}") Duration connectionRequestTimeout,
+                                                        @Value("${http.client.idle-timeout:30s}") Duration idleTimeout,
+                                                        @Value("${http.client.http2:false}") boolean http2) {
+        if (http2) {
+            var client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connectTimeout)
+                    .build();
+            var factory = new JdkClientHttpRequestFactory(client);
+            factory.setReadTimeout(readTimeout);
+            return factory;
+        }
+
+        var pool = new TimedConnectionManager(registry, "inter-service");
+        pool.setMaxTotal(maxTotal);
+        pool.setDefaultMaxPerRoute(maxPerRoute);
+        pool.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(readTimeout))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, "inter-service").bindTo(registry);
+
+        var client = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(client);
+    }
+}
@@ -31,6 +31,7 @@ public class SecurityConfig {
                                 "/api/v1/accounts/register",
                                 "/api/v1/auth/**",
                                 "/actuator/health",
+                                "/actuator/prometheus",
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**"
                         ).permitAll()
@@ -0,0 +1,50 @@
+package com.xulunh.paymentservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+// Connection pool that records how long callers wait to lease a connection (http.client.connections.acquire).
+class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+    private final MeterRegistry registry;
+    private final String pool;
+
+    TimedConnectionManager(MeterRegistry registry, String pool) {
+        this.registry = registry;
+        this.pool = pool;
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        var lease = super.lease(id, route, requestTimeout, state);
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout) throws InterruptedException, ExecutionException, TimeoutException {
+                var sample = Timer.start(registry);
+                String outcome = "failed";
+                try {
+                    var endpoint = lease.get(timeout);
+                    outcome = "leased";
+                    return endpoint;
+                } finally {
+                    sample.stop(Timer.builder("http.client.connections.acquire")
+                            .tag("pool", pool)
+                            .tag("outcome", outcome)
+                            .register(registry));
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return lease.cancel();
+            }
+        };
+    }
+}
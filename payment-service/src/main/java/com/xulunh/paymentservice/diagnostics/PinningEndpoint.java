@@ -0,0 +1,137 @@
+package com.xulunh.paymentservice.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// With spring.threads.virtual.enabled=true, a virtual thread that blocks inside synchronized or under a native
+// frame (older JDBC drivers, some pools) holds its carrier thread for the whole wait. This streams the JDK's
+// jdk.VirtualThreadPinned events, counts them in jvm.threads.virtual.pinned and serves them at /actuator/pinning
+// grouped by the first frame outside the JDK, i.e. the call that blocked.
+// JFR events are JVM-wide: when several services share a JVM (the load generator's in-process stack), set
+// diagnostics.pinning.own-frames-only=true so each only keeps events whose stack passes through its own package.
+@Component
+@Endpoint(id = "pinning")
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinningEndpoint {
+    private static final int MAX_SITES = 200;
+    private static final int MAX_FRAMES = 16;
+    // e.g. "com.xulunh.orderservice."
+    static final String OWN_PACKAGE = PinningEndpoint.class.getPackageName()
+            .substring(0, PinningEndpoint.class.getPackageName().lastIndexOf('.') + 1);
+
+    private final Duration threshold;
+    private final boolean ownFramesOnly;
+    private final Timer pinned;
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+    private final RecordingStream stream;
+
+    public PinningEndpoint(MeterRegistry registry, @Value("${diagnostics.pinning.threshold:20ms}") Duration threshold,
+                           @Value("${diagnostics.pinning.own-frames-only:false}") boolean ownFramesOnly) {
+        this.threshold = threshold;
+        this.ownFramesOnly = ownFramesOnly;
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned").register(registry);
+        this.stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        var frames = new ArrayList<String>();
+        if (event.getStackTrace() != null) {
+            for (var frame : event.getStackTrace().getFrames()) {
+                frames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber());
+            }
+        }
+        record(frames, event.getDuration());
+    }
+
+    void record(List<String> stack, Duration duration) {
+        if (ownFramesOnly && stack.stream().noneMatch(frame -> frame.startsWith(OWN_PACKAGE))) return;
+        pinned.record(duration);
+        var frames = stack.size() > MAX_FRAMES ? stack.subList(0, MAX_FRAMES) : stack;
+        String key = site(frames);
+        var site = sites.get(key);
+        if (site == null) {
+            // bound the map; a flood of distinct sites still shows up in the timer and the untracked count
+            if (sites.size() >= MAX_SITES) {
+                untracked.increment();
+                return;
+            }
+            site = sites.computeIfAbsent(key, k -> new Site(List.copyOf(frames)));
+        }
+        site.count.increment();
+        site.totalNanos.add(duration.toNanos());
+        site.maxNanos.accumulate(duration.toNanos());
+    }
+
+    static String site(List<String> frames) {
+        for (var frame : frames) {
+            if (!frame.startsWith("java.") && !frame.startsWith("jdk.") && !frame.startsWith("sun.")) return frame;
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0);
+    }
+
+    @ReadOperation
+    public PinningReport report() {
+        var bySite = sites.entrySet().stream()
+                .map(e -> new SiteReport(e.getKey(), e.getValue().count.sum(), ms(e.getValue().totalNanos.sum()),
+                        ms(e.getValue().maxNanos.get()), e.getValue().frames))
+                .sorted(Comparator.comparingDouble(SiteReport::totalMs).reversed())
+                .toList();
+        return new PinningReport(threshold.toMillis(), pinned.count(), pinned.totalTime(TimeUnit.MILLISECONDS),
+                untracked.sum(), bySite);
+    }
+
+    // Clears the per-site breakdown (e.g. between load runs); the timer keeps counting
+    @DeleteOperation
+    public void reset() {
+        sites.clear();
+        untracked.reset();
+    }
+
+    @PreDestroy
+    void close() {
+        stream.close();
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static final class Site {
+        final List<String> frames;
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Site(List<String> frames) {
+            this.frames = frames;
+        }
+    }
+
+    public record PinningReport(long thresholdMs, long events, double totalPinnedMs, long untracked, List<SiteReport> sites) {}
+
+    public record SiteReport(String site, long count, double totalMs, double maxMs, List<String> stack) {}
+}
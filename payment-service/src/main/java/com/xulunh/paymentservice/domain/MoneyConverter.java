@@ -0,0 +1,25 @@
+package com.xulunh.paymentservice.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+// Keeps amounts in the DECIMAL(19,2) columns they have always had, so no table needs migrating. The column has no
+// currency, so only DEFAULT_CURRENCY amounts are written rather than silently relabelling anything else.
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        if (money == null) return null;
+        if (!Money.DEFAULT_CURRENCY.equals(money.currency())) {
+            throw new IllegalStateException("Only " + Money.DEFAULT_CURRENCY + " amounts can be stored, got " + money);
+        }
+        return money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.of(amount);
+    }
+}
@@ -0,0 +1,35 @@
+package com.xulunh.paymentservice.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// What payment submission needs to know about an order, kept current from order.events by OrderEventsListener.
+// orderUpdatedAt is order-service's timestamp; an event older than the stored one is ignored. Rows are pruned after
+// payment.order-projection.retention.
+@Getter
+@Setter
+@Entity
+@Table(name = "order_projection")
+public class OrderProjection {
+    @Id
+    @Column(name = "order_id")
+    private UUID orderId;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private Money totalAmount;
+
+    @Column(name = "order_updated_at", nullable = false)
+    private Instant orderUpdatedAt;
+}
@@ -0,0 +1,47 @@
+package com.xulunh.paymentservice.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "payment_outbox", indexes = @Index(name = "idx_payment_outbox_sent_at", columnList = "sent_at, id"))
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "topic", nullable = false, length = 100)
+    private String topic;
+
+    @Column(name = "message_key", nullable = false, length = 100)
+    private String messageKey;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload; // JSON
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt; // null until the relay has published it
+
+    @Column(name = "attempts", nullable = false, columnDefinition = "int default 0")
+    private int attempts; // sends tried so far
+
+    @Column(name = "claimed_until")
+    private Instant claimedUntil; // a relay is sending it, or it waits out a retry backoff, until then
+
+    @Column(name = "dead_at")
+    private Instant deadAt; // dead-lettered: it failed max-attempts times with an error a retry cannot fix
+}
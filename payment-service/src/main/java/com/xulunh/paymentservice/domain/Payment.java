@@ -1,20 +1,24 @@
 package com.xulunh.paymentservice.domain;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "payments")
+// Idempotency-Keys are chosen by clients, so they are only unique per account
+@Table(name = "payments", indexes = {
+        @Index(name = "ux_payments_order_id", columnList = "order_id", unique = true),
+        @Index(name = "ux_payments_account_idempotency_key", columnList = "account_email, idempotency_key", unique = true)})
 public class Payment {
     @Id
     private UUID id;
@@ -25,14 +29,15 @@ public class Payment {
     @Column(name = "account_email", nullable = false)
     private String accountEmail;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "amount", nullable = false, precision = 19, scale = 2)
-    private BigDecimal amount;
+    private Money amount;
 
 
     @Column(name = "status", nullable = false, length = 20)
     private String status; // INITIATED, CAPTURED, FAILED, REFUNDED
 
-    @Column(name = "idempotency_key", nullable = false, unique = true, length = 128)
+    @Column(name = "idempotency_key", nullable = false, length = 128)
     private String idempotencyKey;
 
     @Column(name = "created_at", nullable = false)
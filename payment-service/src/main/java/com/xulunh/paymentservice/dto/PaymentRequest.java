@@ -1,12 +1,11 @@
 package com.xulunh.paymentservice.dto;
 
-import jakarta.validation.constraints.DecimalMin;
+import com.xulunh.paymentservice.domain.Money;
 import jakarta.validation.constraints.NotNull;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 public record PaymentRequest(
         @NotNull UUID orderId,
-        @NotNull @DecimalMin("0.01") BigDecimal amount
+        @NotNull Money amount
 ) {}
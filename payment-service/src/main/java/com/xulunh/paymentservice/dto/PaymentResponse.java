@@ -1,6 +1,7 @@
 package com.xulunh.paymentservice.dto;
 
-import java.math.BigDecimal;
+import com.xulunh.paymentservice.domain.Money;
+
 import java.time.Instant;
 import java.util.UUID;
 
@@ -8,7 +9,7 @@ public record PaymentResponse(
         UUID id,
         UUID orderId,
         String status,
-        BigDecimal amount,
+        Money amount,
         String accountEmail,
         Instant createdAt,
         Instant updatedAt
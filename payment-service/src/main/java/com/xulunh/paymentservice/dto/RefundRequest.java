@@ -1,9 +1,7 @@
 package com.xulunh.paymentservice.dto;
 
-import jakarta.validation.constraints.DecimalMin;
-
-import java.math.BigDecimal;
+import com.xulunh.paymentservice.domain.Money;
 
 public record RefundRequest(
-        @DecimalMin("0.01") BigDecimal amount
+        Money amount
 ) {}
@@ -1,32 +1,137 @@
 package com.xulunh.paymentservice.events;
 
+import com.xulunh.paymentservice.domain.Money;
+import com.xulunh.paymentservice.domain.OrderProjection;
+import com.xulunh.paymentservice.repository.OrderProjectionRepository;
 import com.xulunh.paymentservice.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.UUID;
 
 @Component
 public class OrderEventsListener {
+    private static final Logger log = LoggerFactory.getLogger(OrderEventsListener.class);
+
     private final PaymentRepository payments;
+    private final OrderProjectionRepository projections;
+    private final Counter refunded;
+    private final Duration projectionRetention;
+
+    public OrderEventsListener(PaymentRepository payments, OrderProjectionRepository projections, MeterRegistry registry,
+                               @Value("${payment.order-projection.retention:7d}") Duration projectionRetention) {
+        this.payments = payments;
+        this.projections = projections;
+        this.projectionRetention = projectionRetention;
+        this.refunded = Counter.builder("payment.refunds")
+                .description("Payments marked REFUNDED after their order was cancelled")
+                .register(registry);
+    }
+
+    // Default mode (payment.order-events.batch=true). The poll's projections are loaded with one query and every
+    // cancelled order in it is refunded by one UPDATE, instead of a select and a save per record.
+    @KafkaListener(id = "order-events-batch", topics = "order.events", groupId = "payment-service",
+            containerFactory = "orderEventsBatchFactory", autoStartup = "${payment.order-events.batch:true}")
+    @Transactional
+    public void onOrderEvents(List<ConsumerRecord<String, OrderEvent>> records) {
+        var events = new ArrayList<OrderEvent>(records.size());
+        for (var record : records) {
+            var evt = record.value();
+            if (evt != null && evt.orderId() != null) events.add(evt);
+        }
+        if (events.isEmpty()) return;
 
-    public OrderEventsListener(PaymentRepository payments) { this.payments = payments; }
+        var rows = new HashMap<UUID, OrderProjection>();
+        projections.findAllById(events.stream().map(OrderEvent::orderId).distinct().toList())
+                .forEach(row -> rows.put(row.getOrderId(), row));
+        var changed = new LinkedHashMap<UUID, OrderProjection>();
+        var cancelled = new LinkedHashSet<UUID>();
+        for (var evt : events) {
+            var row = apply(rows.get(evt.orderId()), evt);
+            if (row != null) {
+                rows.put(row.getOrderId(), row);
+                changed.put(row.getOrderId(), row);
+            }
+            if ("OrderCancelled".equals(evt.type())) cancelled.add(evt.orderId());
+        }
+        if (!changed.isEmpty()) projections.saveAll(changed.values());
+        if (cancelled.isEmpty()) return;
+
+        int n = payments.refundByOrderIds(cancelled, Instant.now());
+        refunded.increment(n);
+        log.debug("Refunded {} payment(s) for {} cancelled order(s) in a batch of {}", n, cancelled.size(), records.size());
+    }
 
-    @KafkaListener(topics = "order.events", groupId = "payment-service")
+    // Per-record fallback, enabled with payment.order-events.batch=false
+    @KafkaListener(id = "order-events", topics = "order.events", groupId = "payment-service",
+            autoStartup = "#{!${payment.order-events.batch:true}}")
+    @Transactional
     public void onOrderEvent(ConsumerRecord<String, OrderEvent> record) {
         var evt = record.value();
-        if (evt == null || !"OrderCancelled".equals(evt.type())) return;
+        if (evt == null || evt.orderId() == null) return;
+
+        project(evt);
+        if (!"OrderCancelled".equals(evt.type())) return;
 
         payments.findByOrderId(evt.orderId()).ifPresent(p -> {
             if (!"REFUNDED".equals(p.getStatus())) {
                 p.setStatus("REFUNDED");
                 p.setUpdatedAt(Instant.now());
                 payments.save(p);
+                refunded.increment();
             }
         });
     }
 
-    public record OrderEvent(String type, UUID orderId) {}
+    // A pruned order is simply checked with order-service again; a late event for it only recreates a row that is
+    // still correct for turning payments down
+    @Scheduled(fixedDelayString = "${payment.order-projection.cleanup-interval:1h}")
+    @Transactional
+    public void pruneProjection() {
+        int n = projections.deleteUpdatedBefore(Instant.now().minus(projectionRetention));
+        if (n > 0) log.debug("Pruned {} order projection row(s)", n);
+    }
+
+    private void project(OrderEvent evt) {
+        if (!hasState(evt)) return;
+        var row = apply(projections.findById(evt.orderId()).orElse(null), evt);
+        if (row != null) projections.save(row);
+    }
+
+    // Returns the row to save, or null when the event carries no state or is older than what is stored
+    private static OrderProjection apply(OrderProjection row, OrderEvent evt) {
+        if (!hasState(evt)) return null;
+        if (row != null && row.getOrderUpdatedAt().isAfter(evt.updatedAt())) return null;
+        if (row == null) {
+            row = new OrderProjection();
+            row.setOrderId(evt.orderId());
+        }
+        row.setStatus(evt.status());
+        row.setTotalAmount(evt.totalAmount());
+        row.setOrderUpdatedAt(evt.updatedAt());
+        return row;
+    }
+
+    // Events from before order-service sent the order state only carry type and orderId
+    private static boolean hasState(OrderEvent evt) {
+        return evt.status() != null && evt.totalAmount() != null && evt.updatedAt() != null;
+    }
+
+    public record OrderEvent(String type, UUID orderId, String accountEmail, String status, Money totalAmount,
+                             Instant updatedAt) {}
 }
@@ -0,0 +1,167 @@
+package com.xulunh.paymentservice.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xulunh.paymentservice.domain.OutboxEvent;
+import com.xulunh.paymentservice.repository.OutboxEventRepository;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Drains payment_outbox: every linger interval it claims up to batch-size unsent rows in a short transaction, sends
+// them to Kafka together outside it, waits for the acks and marks the acknowledged rows sent. A full batch is followed
+// immediately by the next one. A failed row is retried after a backoff that doubles per attempt, so delivery is
+// at-least-once; one that failed max-attempts times with an error a retry cannot fix (a payload that cannot be read or
+// serialized, a record the broker refuses) is dead-lettered instead of being retried forever. Broker outages and
+// timeouts never dead-letter a row.
+@Component
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outbox;
+    private final KafkaTemplate<String, Object> kafka;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration retention;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    public OutboxRelay(OutboxEventRepository outbox,
+                       KafkaTemplate<String, Object> kafka,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager txManager,
+                       @Value("${payment.outbox.batch-size:100}") int batchSize,
+                       @Value("${payment.outbox.send-timeout:10s}") Duration sendTimeout,
+                       @Value("${payment.outbox.retention:7d}") Duration retention,
+                       @Value("${payment.outbox.max-attempts:5}") int maxAttempts,
+                       @Value("${payment.outbox.retry-backoff:1s}") Duration retryBackoff) {
+        this.outbox = outbox;
+        this.kafka = kafka;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(txManager);
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.retention = retention;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.linger:100ms}")
+    public void drain() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    // Returns the number of rows marked sent
+    int relayBatch() {
+        // The claim outlives the wait for acks; if this relay dies mid-batch, the rows become claimable again after it
+        var claimed = Instant.now();
+        List<OutboxEvent> rows = tx.execute(status -> {
+            var claimable = outbox.lockClaimable(claimed, batchSize);
+            if (!claimable.isEmpty()) {
+                outbox.claim(claimable.stream().map(OutboxEvent::getId).toList(), claimed.plus(sendTimeout.multipliedBy(2)));
+            }
+            return claimable;
+        });
+        if (rows == null || rows.isEmpty()) return 0;
+
+        var sends = new ArrayList<CompletableFuture<SendResult<String, Object>>>(rows.size());
+        for (var row : rows) sends.add(send(row));
+
+        var acked = new ArrayList<Long>(rows.size());
+        var dead = new ArrayList<Long>();
+        var retries = new LinkedHashMap<Long, Instant>();
+        for (int i = 0; i < rows.size(); i++) {
+            var row = rows.get(i);
+            var failure = awaitAck(sends.get(i));
+            if (failure == null) {
+                acked.add(row.getId());
+                continue;
+            }
+            int attempts = row.getAttempts() + 1; // the claim counted this one
+            if (!retriable(failure) && attempts >= maxAttempts) {
+                log.error("Outbox row {} dead-lettered after {} attempts: {}", row.getId(), attempts, failure.toString());
+                dead.add(row.getId());
+            } else {
+                log.warn("Outbox send of row {} failed (attempt {}), will retry: {}", row.getId(), attempts, failure.toString());
+                retries.put(row.getId(), Instant.now().plus(backoff(attempts)));
+            }
+        }
+        tx.executeWithoutResult(status -> {
+            var now = Instant.now();
+            if (!acked.isEmpty()) outbox.markSent(acked, now);
+            if (!dead.isEmpty()) outbox.markDead(dead, now);
+            retries.forEach((id, until) -> outbox.retryAfter(List.of(id), until));
+        });
+        return acked.size();
+    }
+
+    private Duration backoff(int attempts) {
+        return retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 8));
+    }
+
+    // Kafka marks errors that may succeed on retry (broker unavailable, request timeouts); our own ack timeout is one too
+    static boolean retriable(Throwable failure) {
+        for (var e = failure; e != null; e = e.getCause()) {
+            if (e instanceof RetriableException || e instanceof TimeoutException || e instanceof InterruptedException) return true;
+        }
+        return false;
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxEvent row) {
+        try {
+            return kafka.send(row.getTopic(), row.getMessageKey(), value(row));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Payment events are sent typed so EventSerializer can write them in the binary format; other rows as stored
+    private Object value(OutboxEvent row) throws IOException {
+        if (PaymentEvents.TOPIC.equals(row.getTopic())) {
+            return objectMapper.readValue(row.getPayload(), PaymentEvents.PaymentEvent.class);
+        }
+        return objectMapper.readTree(row.getPayload());
+    }
+
+    // null once acknowledged, otherwise the failure
+    private Throwable awaitAck(CompletableFuture<SendResult<String, Object>> send) {
+        try {
+            send.get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (TimeoutException e) {
+            return e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.cleanup-interval:1h}")
+    public void purgeSent() {
+        tx.executeWithoutResult(status -> outbox.deleteSentBefore(Instant.now().minus(retention)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.xulunh.paymentservice.events;
 
-import java.math.BigDecimal;
+import com.xulunh.paymentservice.domain.Money;
+
 import java.time.Instant;
 import java.util.UUID;
 
@@ -8,7 +9,7 @@ public record PaymentEvent(
         String type, // PaymentSucceeded, PaymentFailed, RefundSucceeded
         UUID orderId,
         UUID paymentId,
-        BigDecimal amount,
+        Money amount,
         String status,
         Instant occurredAt
 ) {}
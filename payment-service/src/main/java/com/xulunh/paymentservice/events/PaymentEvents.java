@@ -1,21 +1,44 @@
 package com.xulunh.paymentservice.events;
 
-import org.springframework.kafka.core.KafkaTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xulunh.paymentservice.domain.Money;
+import com.xulunh.paymentservice.domain.OutboxEvent;
+import com.xulunh.paymentservice.repository.OutboxEventRepository;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
+// Events are written to the payment_outbox table in the caller's transaction; OutboxRelay publishes them to Kafka
 @Component
 public class PaymentEvents {
-    private final KafkaTemplate<String, Object> kafka;
-    public PaymentEvents(KafkaTemplate<String, Object> kafka) { this.kafka = kafka; }
+    static final String TOPIC = "payment.events";
 
-    public void publishSucceeded(UUID orderId, UUID paymentId, BigDecimal amount) {
-        kafka.send("payment.events", orderId.toString(),
-                new PaymentEvent("PaymentSucceeded", orderId, paymentId, amount, Instant.now()));
+    private final OutboxEventRepository outbox;
+    private final ObjectMapper objectMapper;
+
+    public PaymentEvents(OutboxEventRepository outbox, ObjectMapper objectMapper) {
+        this.outbox = outbox;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishSucceeded(UUID orderId, UUID paymentId, Money amount) {
+        var evt = new PaymentEvent("PaymentSucceeded", orderId, paymentId, amount, Instant.now());
+        var row = new OutboxEvent();
+        row.setTopic(TOPIC);
+        row.setMessageKey(orderId.toString());
+        try {
+            row.setPayload(objectMapper.writeValueAsString(evt));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize payment event", e);
+        }
+        row.setCreatedAt(evt.occurredAt());
+        outbox.save(row);
     }
 
-    public record PaymentEvent(String type, UUID orderId, UUID paymentId, BigDecimal amount, Instant occurredAt) {}
+    public record PaymentEvent(String type, UUID orderId, UUID paymentId, Money amount, Instant occurredAt) {}
 }
@@ -0,0 +1,16 @@
+package com.xulunh.paymentservice.repository;
+
+import com.xulunh.paymentservice.domain.OrderProjection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface OrderProjectionRepository extends JpaRepository<OrderProjection, UUID> {
+    @Modifying
+    @Query("delete from OrderProjection o where o.orderUpdatedAt < :before")
+    int deleteUpdatedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,40 @@
+package com.xulunh.paymentservice.repository;
+
+import com.xulunh.paymentservice.domain.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // Unsent, not dead-lettered rows whose claim has lapsed. SKIP LOCKED lets several relay instances claim
+    // rows without waiting on each other.
+    @Query(value = "select * from payment_outbox where sent_at is null and dead_at is null "
+            + "and (claimed_until is null or claimed_until < :now) order by id limit :limit for update skip locked",
+            nativeQuery = true)
+    List<OutboxEvent> lockClaimable(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.claimedUntil = :until, e.attempts = e.attempts + 1 where e.id in :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("until") Instant until);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.claimedUntil = :until where e.id in :ids")
+    int retryAfter(@Param("ids") Collection<Long> ids, @Param("until") Instant until);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.deadAt = :deadAt, e.claimedUntil = null where e.id in :ids")
+    int markDead(@Param("ids") Collection<Long> ids, @Param("deadAt") Instant deadAt);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.sentAt = :sentAt where e.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.sentAt < :before")
+    int deleteSentBefore(@Param("before") Instant before);
+}
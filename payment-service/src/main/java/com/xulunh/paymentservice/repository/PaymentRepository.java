@@ -2,11 +2,22 @@ package com.xulunh.paymentservice.repository;
 
 import com.xulunh.paymentservice.domain.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface PaymentRepository extends JpaRepository<Payment, UUID> {
-    Optional<Payment> findByIdempotencyKey(String idempotencyKey);
     Optional<Payment> findByOrderId(UUID orderId);
+    // (account_email = ? and idempotency_key = ?) or order_id = ?
+    Optional<Payment> findFirstByAccountEmailAndIdempotencyKeyOrOrderId(String accountEmail, String idempotencyKey, UUID orderId);
+
+    // One statement for every cancelled order in a poll; returns how many payments it refunded
+    @Modifying
+    @Query("update Payment p set p.status = 'REFUNDED', p.updatedAt = :now where p.orderId in :orderIds and p.status <> 'REFUNDED'")
+    int refundByOrderIds(@Param("orderIds") Collection<UUID> orderIds, @Param("now") Instant now);
 }
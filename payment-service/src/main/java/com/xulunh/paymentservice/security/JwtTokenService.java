@@ -1,27 +1,52 @@
 package com.xulunh.paymentservice.security;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Date;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Map;
 
 @Service
 public class JwtTokenService {
     private final Key key;
     private final long expMinutes;
+    private final JwtParser parser;
+    // Verified claims keyed by SHA-256 of the token; an entry never outlives the token's exp
+    private final Cache<String, Claims> verified;
+    private final Timer verifyTimer;
 
     public JwtTokenService(@Value("${security.jwt.secret}") String secret,
-                           @Value("${security.jwt.exp-min:60}") long expMinutes) {
+                           @Value("${security.jwt.exp-min:60}") long expMinutes,
+                           @Value("${security.jwt.cache.max-size:10000}") long cacheMaxSize,
+                           MeterRegistry registry) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expMinutes = expMinutes;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(Expiry.creating((String digest, Claims claims) -> untilExpiry(claims)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, verified, "jwt-verified-claims");
+        this.verifyTimer = Timer.builder("security.jwt.verify").register(registry);
     }
     public String create(String subject, Map<String, Object> claims) {
         Instant now = Instant.now();
@@ -34,6 +59,27 @@ public class JwtTokenService {
                 .compact();
     }
     public Claims parse(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        String digest = digest(token);
+        Claims cached = verified.getIfPresent(digest);
+        if (cached != null) return cached;
+
+        // Invalid tokens throw here and are never cached
+        Claims claims = verifyTimer.record(() -> parser.parseClaimsJws(token).getBody());
+        if (claims.getExpiration() != null) verified.put(digest, claims);
+        return claims;
+    }
+
+    private static Duration untilExpiry(Claims claims) {
+        var remaining = Duration.between(Instant.now(), claims.getExpiration().toInstant());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private static String digest(String token) {
+        try {
+            var sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
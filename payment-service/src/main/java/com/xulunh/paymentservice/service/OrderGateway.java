@@ -1,29 +1,45 @@
 package com.xulunh.paymentservice.service;
 
+import com.xulunh.paymentservice.domain.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 @Component
 public class OrderGateway {
     private final RestTemplate restTemplate;
     private final String baseUrl;
+    private final MeterRegistry registry;
 
-    public OrderGateway(RestTemplate restTemplate, @Value("${order.service.base-url}") String baseUrl) {
+    public OrderGateway(RestTemplate restTemplate, @Value("${order.service.base-url}") String baseUrl, MeterRegistry registry) {
         this.restTemplate = restTemplate;
         this.baseUrl = baseUrl;
+        this.registry = registry;
     }
 
+    // order.gateway.requests per operation; the templated URL keeps http.client.requests to one uri tag
     public OrderDto get(UUID orderId) {
-        return restTemplate.getForObject(baseUrl + "/api/v1/orders/" + orderId, OrderDto.class);
+        var sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            var order = restTemplate.getForObject(baseUrl + "/api/v1/orders/{id}", OrderDto.class, orderId);
+            outcome = "success";
+            return order;
+        } finally {
+            sample.stop(Timer.builder("order.gateway.requests")
+                    .tag("operation", "get-order")
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
     }
 
     public static class OrderDto {
         public UUID id;
         public String status;
-        public BigDecimal totalAmount;
+        public Money totalAmount;
     }
 }
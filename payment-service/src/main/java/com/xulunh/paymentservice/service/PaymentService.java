@@ -5,6 +5,7 @@ import com.xulunh.paymentservice.dto.PaymentRequest;
 import com.xulunh.paymentservice.dto.PaymentResponse;
 import com.xulunh.paymentservice.dto.RefundRequest;
 import com.xulunh.paymentservice.events.PaymentEvents;
+import com.xulunh.paymentservice.repository.OrderProjectionRepository;
 import com.xulunh.paymentservice.repository.PaymentRepository;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -16,11 +17,14 @@ import java.util.UUID;
 @Service
 public class PaymentService {
     private final PaymentRepository payments;
+    private final OrderProjectionRepository projections;
     private final PaymentEvents events;
     private final OrderGateway orders;
 
-    public PaymentService(PaymentRepository payments, PaymentEvents events, OrderGateway orders) {
+    public PaymentService(PaymentRepository payments, OrderProjectionRepository projections, PaymentEvents events,
+                          OrderGateway orders) {
         this.payments = payments;
+        this.projections = projections;
         this.events = events;
         this.orders = orders;
     }
@@ -30,16 +34,34 @@ public class PaymentService {
                 p.getAccountEmail(), p.getCreatedAt(), p.getUpdatedAt());
     }
 
-    @Transactional
-    public PaymentResponse submit(PaymentRequest req) {
-        var existing = payments.findByOrderId(req.orderId());
-        if (existing.isPresent()) return toResponse(existing.get());
+    // Without an Idempotency-Key header the order id is the key: an order is paid at most once either way
+    public static String idempotencyKey(String header, UUID orderId) {
+        if (header == null) return "order-" + orderId;
+        if (header.isBlank() || header.length() > 128) {
+            throw new IllegalStateException("Idempotency-Key must be 1 to 128 characters");
+        }
+        return header;
+    }
 
+    // Both lookups are unique-index probes, the key scoped to the account; a retry returns the stored payment, whatever its status
+    @Transactional
+    public PaymentResponse submit(PaymentRequest req, String idempotencyKey) {
         var auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || auth.getName() == null) throw new IllegalStateException("Unauthenticated");
         String accountEmail = auth.getName();
 
-        var order = orders.get(req.orderId());
+        var existing = payments.findFirstByAccountEmailAndIdempotencyKeyOrOrderId(accountEmail, idempotencyKey, req.orderId());
+        if (existing.isPresent()) {
+            if (!existing.get().getAccountEmail().equals(accountEmail)) throw new IllegalStateException("Order already paid");
+            if (!existing.get().getOrderId().equals(req.orderId())) {
+                throw new IllegalStateException("Idempotency-Key already used for another order");
+            }
+            return toResponse(existing.get());
+        }
+
+        if (!req.amount().isPositive()) throw new IllegalStateException("Amount must be positive");
+
+        var order = payableOrder(req);
         if (order == null) throw new IllegalStateException("Order not found");
         if (!"CREATED".equals(order.status)) throw new IllegalStateException("Order not in CREATED status");
 
@@ -48,11 +70,11 @@ public class PaymentService {
         p.setOrderId(req.orderId());
         p.setAccountEmail(accountEmail);
         p.setAmount(req.amount());
-        p.setIdempotencyKey(UUID.randomUUID().toString());
+        p.setIdempotencyKey(idempotencyKey);
         p.setCreatedAt(Instant.now());
         p.setUpdatedAt(p.getCreatedAt());
 
-        if (order.totalAmount == null || req.amount() == null || order.totalAmount.compareTo(req.amount()) != 0) {
+        if (!req.amount().equals(order.totalAmount)) {
             p.setStatus("FAILED");
             p = payments.save(p);
             return toResponse(p);
@@ -64,6 +86,22 @@ public class PaymentService {
         return toResponse(p);
     }
 
+    // The projection fed by order.events answers without a call to order-service. It can trail order-service: orders
+    // never return to CREATED, so a row in any other status is final, and a CREATED row whose total matches is taken.
+    // If the order left CREATED meanwhile, order-service answers the PaymentSucceeded with another OrderCancelled, which
+    // refunds the payment. Only a missing row, or a CREATED one whose total differs (an update not seen yet), is
+    // confirmed with order-service.
+    private OrderGateway.OrderDto payableOrder(PaymentRequest req) {
+        var local = projections.findById(req.orderId())
+                .filter(o -> !"CREATED".equals(o.getStatus()) || req.amount().equals(o.getTotalAmount()));
+        if (local.isEmpty()) return orders.get(req.orderId());
+        var order = new OrderGateway.OrderDto();
+        order.id = local.get().getOrderId();
+        order.status = local.get().getStatus();
+        order.totalAmount = local.get().getTotalAmount();
+        return order;
+    }
+
     @Transactional(readOnly = true)
     public PaymentResponse get(UUID id) {
         return payments.findById(id).map(this::toResponse).orElseThrow();
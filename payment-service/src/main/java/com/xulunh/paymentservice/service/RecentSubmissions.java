@@ -0,0 +1,65 @@
+package com.xulunh.paymentservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xulunh.paymentservice.dto.PaymentResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Short-lived memory of payment submissions per account and Idempotency-Key, in front of the database unique indexes.
+// A retry that arrives while the first attempt is still running waits for its result instead of racing it to the
+// indexes; one that arrives within the window is answered without a query. Failed attempts are forgotten at once.
+@Component
+public class RecentSubmissions {
+    private final Cache<String, CompletableFuture<PaymentResponse>> recent;
+
+    public RecentSubmissions(MeterRegistry registry,
+                             @Value("${payment.idempotency.max-size:100000}") long maxSize,
+                             @Value("${payment.idempotency.window:30s}") Duration window) {
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(window)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, recent, "payment-submissions");
+    }
+
+    public PaymentResponse submit(String accountEmail, String idempotencyKey, UUID orderId, Supplier<PaymentResponse> submit) {
+        var key = accountEmail + '\n' + idempotencyKey;
+        var mine = new CompletableFuture<PaymentResponse>();
+        var first = recent.asMap().putIfAbsent(key, mine);
+        if (first != null) {
+            var res = await(first);
+            if (!res.orderId().equals(orderId)) {
+                throw new IllegalStateException("Idempotency-Key already used for another order");
+            }
+            return res;
+        }
+        try {
+            var res = submit.get();
+            mine.complete(res);
+            return res;
+        } catch (RuntimeException e) {
+            recent.asMap().remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static PaymentResponse await(CompletableFuture<PaymentResponse> first) {
+        try {
+            return first.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -4,27 +4,33 @@ import com.xulunh.paymentservice.dto.PaymentRequest;
 import com.xulunh.paymentservice.dto.PaymentResponse;
 import com.xulunh.paymentservice.dto.RefundRequest;
 import com.xulunh.paymentservice.service.PaymentService;
+import com.xulunh.paymentservice.service.RecentSubmissions;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/payments")
 public class PaymentController {
     private final PaymentService service;
+    private final RecentSubmissions submissions;
 
-    public PaymentController(PaymentService service) {
+    public PaymentController(PaymentService service, RecentSubmissions submissions) {
         this.service = service;
+        this.submissions = submissions;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
 //    @PreAuthorize("isAuthenticated()")
-    public PaymentResponse submit(@Valid @RequestBody PaymentRequest req) {
-        return service.submit(req);
+    public PaymentResponse submit(@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                  @Valid @RequestBody PaymentRequest req, Principal principal) {
+        String key = PaymentService.idempotencyKey(idempotencyKey, req.orderId());
+        return submissions.submit(principal.getName(), key, req.orderId(), () -> service.submit(req, key));
     }
 
     @PostMapping("/{id}/refund")
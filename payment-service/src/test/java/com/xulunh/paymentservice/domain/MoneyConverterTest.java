@@ -0,0 +1,27 @@
+package com.xulunh.paymentservice.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyConverterTest {
+
+    private final MoneyConverter converter = new MoneyConverter();
+
+    @Test
+    void roundTripsThroughTheDecimalColumn() {
+        assertThat(converter.convertToDatabaseColumn(new Money(1550, Money.DEFAULT_CURRENCY))).isEqualTo(new BigDecimal("15.50"));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("15.5"))).isEqualTo(new Money(1550, Money.DEFAULT_CURRENCY));
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+
+    @Test
+    void rejectsOtherCurrencies_insteadOfStoringThemAsUsd() {
+        assertThatThrownBy(() -> converter.convertToDatabaseColumn(new Money(100, Currency.getInstance("EUR"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,159 @@
+package com.xulunh.paymentservice.events;
+
+import com.xulunh.paymentservice.domain.Money;
+import com.xulunh.paymentservice.domain.OrderProjection;
+import com.xulunh.paymentservice.domain.Payment;
+import com.xulunh.paymentservice.events.OrderEventsListener.OrderEvent;
+import com.xulunh.paymentservice.repository.OrderProjectionRepository;
+import com.xulunh.paymentservice.repository.PaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderEventsListenerTest {
+
+    private final PaymentRepository payments = mock(PaymentRepository.class);
+    private final OrderProjectionRepository projections = mock(OrderProjectionRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OrderEventsListener listener = new OrderEventsListener(payments, projections, registry, Duration.ofDays(7));
+
+    private static ConsumerRecord<String, OrderEvent> record(OrderEvent evt) {
+        return new ConsumerRecord<>("order.events", 0, 0L, evt.orderId().toString(), evt);
+    }
+
+    private static OrderEvent event(String type, UUID orderId, String status, String total, Instant updatedAt) {
+        return new OrderEvent(type, orderId, "buyer@example.com", status, Money.of(new BigDecimal(total)), updatedAt);
+    }
+
+    @Test
+    void orderCreated_insertsProjection() {
+        var orderId = UUID.randomUUID();
+        var at = Instant.now();
+
+        listener.onOrderEvent(record(event("OrderCreated", orderId, "CREATED", "9.99", at)));
+
+        var saved = ArgumentCaptor.forClass(OrderProjection.class);
+        verify(projections).save(saved.capture());
+        assertThat(saved.getValue().getOrderId()).isEqualTo(orderId);
+        assertThat(saved.getValue().getStatus()).isEqualTo("CREATED");
+        assertThat(saved.getValue().getTotalAmount()).isEqualTo(Money.of(new BigDecimal("9.99")));
+        assertThat(saved.getValue().getOrderUpdatedAt()).isEqualTo(at);
+        verifyNoInteractions(payments);
+    }
+
+    @Test
+    void staleEvent_doesNotOverwriteNewerState() {
+        var orderId = UUID.randomUUID();
+        var row = new OrderProjection();
+        row.setOrderId(orderId);
+        row.setStatus("COMPLETED");
+        row.setTotalAmount(Money.of(new BigDecimal("9.99")));
+        row.setOrderUpdatedAt(Instant.now());
+        when(projections.findById(orderId)).thenReturn(Optional.of(row));
+
+        listener.onOrderEvent(record(event("OrderUpdated", orderId, "CREATED", "5.00", row.getOrderUpdatedAt().minusSeconds(1))));
+
+        verify(projections, never()).save(any());
+        assertThat(row.getStatus()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void orderCancelled_updatesProjection_andRefundsPayment() {
+        var orderId = UUID.randomUUID();
+        var payment = new Payment();
+        payment.setOrderId(orderId);
+        payment.setStatus("SUCCESS");
+        when(payments.findByOrderId(orderId)).thenReturn(Optional.of(payment));
+
+        listener.onOrderEvent(record(event("OrderCancelled", orderId, "CANCELED", "9.99", Instant.now())));
+
+        verify(projections).save(any(OrderProjection.class));
+        verify(payments).save(payment);
+        assertThat(payment.getStatus()).isEqualTo("REFUNDED");
+    }
+
+    @Test
+    void legacyEventWithoutState_onlyRefunds() {
+        var orderId = UUID.randomUUID();
+
+        listener.onOrderEvent(record(new OrderEvent("OrderCancelled", orderId, null, null, null, null)));
+
+        verifyNoInteractions(projections);
+        verify(payments).findByOrderId(orderId);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batch_refundsAllCancelledOrdersWithOneUpdate() {
+        var created = UUID.randomUUID();
+        var cancelled1 = UUID.randomUUID();
+        var cancelled2 = UUID.randomUUID();
+        var at = Instant.now();
+        when(payments.refundByOrderIds(anyCollection(), any())).thenReturn(2);
+
+        listener.onOrderEvents(List.of(
+                record(event("OrderCreated", created, "CREATED", "1.00", at)),
+                record(event("OrderCancelled", cancelled1, "CANCELED", "2.00", at)),
+                record(new OrderEvent("OrderCancelled", cancelled2, null, null, null, null)),
+                record(event("OrderCancelled", cancelled1, "CANCELED", "2.00", at))));
+
+        verify(projections).findAllById(List.of(created, cancelled1, cancelled2));
+        var saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(projections).saveAll(saved.capture());
+        assertThat((Iterable<OrderProjection>) saved.getValue()).extracting(OrderProjection::getOrderId)
+                .containsExactly(created, cancelled1);
+        verify(payments).refundByOrderIds(eq(Set.of(cancelled1, cancelled2)), any());
+        verify(payments, never()).findByOrderId(any());
+        verify(payments, never()).save(any());
+        assertThat(registry.counter("payment.refunds").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void batch_appliesEventsForTheSameOrderInPollOrder() {
+        var orderId = UUID.randomUUID();
+        var at = Instant.now();
+        var row = new OrderProjection();
+        row.setOrderId(orderId);
+        row.setStatus("CREATED");
+        row.setTotalAmount(Money.of(new BigDecimal("9.99")));
+        row.setOrderUpdatedAt(at.minusSeconds(10));
+        when(projections.findAllById(List.of(orderId))).thenReturn(List.of(row));
+
+        listener.onOrderEvents(List.of(
+                record(event("OrderUpdated", orderId, "CREATED", "5.00", at)),
+                record(event("OrderUpdated", orderId, "CREATED", "7.00", at.minusSeconds(5))),
+                record(event("OrderCompleted", orderId, "COMPLETED", "5.00", at.plusSeconds(1)))));
+
+        verify(projections).saveAll(any());
+        assertThat(row.getStatus()).isEqualTo("COMPLETED");
+        assertThat(row.getTotalAmount()).isEqualTo(Money.of(new BigDecimal("5.00")));
+        verify(payments, never()).refundByOrderIds(anyCollection(), any());
+    }
+
+    @Test
+    void pruneProjection_deletesRowsPastTheRetention() {
+        when(projections.deleteUpdatedBefore(any(Instant.class))).thenReturn(3);
+
+        listener.pruneProjection();
+
+        var before = ArgumentCaptor.forClass(Instant.class);
+        verify(projections).deleteUpdatedBefore(before.capture());
+        assertThat(before.getValue()).isBetween(Instant.now().minus(Duration.ofDays(7)).minusSeconds(5),
+                Instant.now().minus(Duration.ofDays(7)));
+    }
+}
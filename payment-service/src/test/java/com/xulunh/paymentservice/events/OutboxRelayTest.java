@@ -0,0 +1,147 @@
+package com.xulunh.paymentservice.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xulunh.paymentservice.domain.Money;
+import com.xulunh.paymentservice.domain.OutboxEvent;
+import com.xulunh.paymentservice.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+class OutboxRelayTest {
+    private final OutboxEventRepository outbox = mock(OutboxEventRepository.class);
+    private final KafkaTemplate<String, Object> kafka = mock(KafkaTemplate.class);
+    private final OutboxRelay relay = new OutboxRelay(outbox, kafka, new ObjectMapper().findAndRegisterModules(),
+            mock(PlatformTransactionManager.class), 2, Duration.ofSeconds(1), Duration.ofDays(7), 3, Duration.ofSeconds(1));
+
+    private static OutboxEvent row(long id, String key) {
+        var row = new OutboxEvent();
+        row.setId(id);
+        row.setTopic("payment.events");
+        row.setMessageKey(key);
+        row.setPayload("{\"type\":\"PaymentSucceeded\",\"orderId\":\"" + UUID.randomUUID() + "\",\"amount\":9.99}");
+        row.setCreatedAt(Instant.now());
+        return row;
+    }
+
+    @Test
+    void relayBatch_marksOnlyAcknowledgedRowsSent() {
+        when(outbox.lockClaimable(any(), eq(2))).thenReturn(List.of(row(1, "a"), row(2, "b")));
+        when(kafka.send(eq("payment.events"), eq("a"), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafka.send(eq("payment.events"), eq("b"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        int sent = relay.relayBatch();
+
+        assertThat(sent).isEqualTo(1);
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(outbox).markSent(ids.capture(), any());
+        assertThat(ids.getValue()).containsExactly(1L);
+        verify(outbox).retryAfter(eq(List.of(2L)), any());
+        verify(outbox, never()).markDead(anyCollection(), any());
+    }
+
+    @Test
+    void relayBatch_claimsRowsInItsOwnTransaction_beforeSending() {
+        var txManager = mock(PlatformTransactionManager.class);
+        var relay = new OutboxRelay(outbox, kafka, new ObjectMapper().findAndRegisterModules(), txManager, 2,
+                Duration.ofSeconds(1), Duration.ofDays(7), 3, Duration.ofSeconds(1));
+        when(outbox.lockClaimable(any(), eq(2))).thenReturn(List.of(row(1, "a")));
+        when(kafka.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relayBatch();
+
+        var order = inOrder(outbox, txManager, kafka);
+        order.verify(outbox).lockClaimable(any(), eq(2));
+        order.verify(outbox).claim(eq(List.of(1L)), any());
+        order.verify(txManager).commit(any());
+        order.verify(kafka).send(anyString(), anyString(), any());
+        order.verify(outbox).markSent(eq(List.of(1L)), any());
+        order.verify(txManager).commit(any());
+    }
+
+    @Test
+    void relayBatch_deadLettersAnUnsendablePayload_afterMaxAttempts() {
+        var poison = row(1, "a");
+        poison.setPayload("not json");
+        poison.setAttempts(2);
+        when(outbox.lockClaimable(any(), eq(2))).thenReturn(List.of(poison));
+
+        assertThat(relay.relayBatch()).isZero();
+
+        verify(outbox).markDead(eq(List.of(1L)), any());
+        verify(outbox, never()).retryAfter(anyCollection(), any());
+        verifyNoInteractions(kafka);
+    }
+
+    @Test
+    void relayBatch_neverDeadLettersWhileTheBrokerIsUnavailable() {
+        var row = row(1, "a");
+        row.setAttempts(10);
+        when(outbox.lockClaimable(any(), eq(2))).thenReturn(List.of(row));
+        when(kafka.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.failedFuture(
+                new KafkaException("send failed", new org.apache.kafka.common.errors.TimeoutException("no broker"))));
+
+        relay.relayBatch();
+
+        verify(outbox, never()).markDead(anyCollection(), any());
+        ArgumentCaptor<Instant> until = ArgumentCaptor.forClass(Instant.class);
+        verify(outbox).retryAfter(eq(List.of(1L)), until.capture());
+        assertThat(until.getValue()).isAfter(Instant.now().plusSeconds(200));
+    }
+
+    @Test
+    void relayBatch_sendsPaymentEventsTyped_forTheBinaryFormat() {
+        var row = row(1, "a");
+        when(outbox.lockClaimable(any(), eq(2))).thenReturn(List.of(row));
+        when(kafka.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relayBatch();
+
+        var value = ArgumentCaptor.forClass(Object.class);
+        verify(kafka).send(eq("payment.events"), eq("a"), value.capture());
+        assertThat(value.getValue()).isInstanceOfSatisfying(PaymentEvents.PaymentEvent.class,
+                evt -> assertThat(evt.amount()).isEqualTo(Money.of(new BigDecimal("9.99"))));
+    }
+
+    @Test
+    void relayBatch_nothingPending_sendsNothing() {
+        when(outbox.lockClaimable(any(), anyInt())).thenReturn(List.of());
+
+        assertThat(relay.relayBatch()).isZero();
+        verifyNoInteractions(kafka);
+        verify(outbox, never()).markSent(anyCollection(), any());
+    }
+
+    @Test
+    void drain_keepsGoingWhileBatchesAreFull() {
+        when(outbox.lockClaimable(any(), eq(2)))
+                .thenReturn(List.of(row(1, "a"), row(2, "b")))
+                .thenReturn(List.of(row(3, "c")));
+        when(kafka.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.drain();
+
+        verify(outbox, times(2)).lockClaimable(any(), eq(2));
+        verify(kafka, times(3)).send(anyString(), anyString(), any());
+    }
+}
@@ -0,0 +1,40 @@
+package com.xulunh.paymentservice.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.xulunh.paymentservice.domain.Money;
+import com.xulunh.paymentservice.domain.OutboxEvent;
+import com.xulunh.paymentservice.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class PaymentEventsTest {
+    private final OutboxEventRepository outbox = mock(OutboxEventRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final PaymentEvents events = new PaymentEvents(outbox, objectMapper);
+
+    @Test
+    void publishSucceeded_writesOutboxRowKeyedByOrder() throws Exception {
+        var orderId = UUID.randomUUID();
+        var paymentId = UUID.randomUUID();
+
+        events.publishSucceeded(orderId, paymentId, Money.of(new BigDecimal("15.50")));
+
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outbox).save(captor.capture());
+        var row = captor.getValue();
+        assertThat(row.getTopic()).isEqualTo("payment.events");
+        assertThat(row.getMessageKey()).isEqualTo(orderId.toString());
+        assertThat(row.getSentAt()).isNull();
+        var evt = objectMapper.readValue(row.getPayload(), PaymentEvents.PaymentEvent.class);
+        assertThat(evt.type()).isEqualTo("PaymentSucceeded");
+        assertThat(evt.paymentId()).isEqualTo(paymentId);
+        assertThat(evt.amount()).isEqualTo(Money.of(new BigDecimal("15.50")));
+    }
+}
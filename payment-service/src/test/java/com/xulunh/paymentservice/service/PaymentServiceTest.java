@@ -1,10 +1,13 @@
 package com.xulunh.paymentservice.service;
 
+import com.xulunh.paymentservice.domain.Money;
+import com.xulunh.paymentservice.domain.OrderProjection;
 import com.xulunh.paymentservice.domain.Payment;
 import com.xulunh.paymentservice.dto.PaymentRequest;
 import com.xulunh.paymentservice.dto.PaymentResponse;
 import com.xulunh.paymentservice.dto.RefundRequest;
 import com.xulunh.paymentservice.events.PaymentEvents;
+import com.xulunh.paymentservice.repository.OrderProjectionRepository;
 import com.xulunh.paymentservice.repository.PaymentRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -28,8 +31,9 @@ class PaymentServiceTest {
 
     private final PaymentRepository repo = mock(PaymentRepository.class);
     private final PaymentEvents events = mock(PaymentEvents.class);
+    private final OrderProjectionRepository projections = mock(OrderProjectionRepository.class);
     private final OrderGateway orders = mock(OrderGateway.class);
-    private final PaymentService service = new PaymentService(repo, events, orders);
+    private final PaymentService service = new PaymentService(repo, projections, events, orders);
 
     @AfterEach
     void clearAuth() {
@@ -50,20 +54,63 @@ class PaymentServiceTest {
         var orderId = UUID.randomUUID();
         payment.setId(UUID.randomUUID());
         payment.setOrderId(orderId);
+        payment.setAccountEmail("user@example.com");
         payment.setStatus("SUCCESS");
-        when(repo.findByOrderId(orderId)).thenReturn(Optional.of(payment));
+        when(repo.findFirstByAccountEmailAndIdempotencyKeyOrOrderId("user@example.com", "key-1", orderId)).thenReturn(Optional.of(payment));
 
         setAuth("user@example.com");
-        var res = service.submit(new PaymentRequest(orderId, new BigDecimal("10.00")));
+        var res = service.submit(new PaymentRequest(orderId, Money.of(new BigDecimal("10.00"))), "key-1");
         assertThat(res.id()).isEqualTo(payment.getId());
         verify(repo, never()).save(any());
         verifyNoInteractions(events);
     }
 
+    @Test
+    void submit_rejectsKeyAlreadyUsedForAnotherOrder() {
+        var other = new Payment();
+        other.setId(UUID.randomUUID());
+        other.setOrderId(UUID.randomUUID());
+        other.setAccountEmail("user@example.com");
+        var orderId = UUID.randomUUID();
+        when(repo.findFirstByAccountEmailAndIdempotencyKeyOrOrderId("user@example.com", "key-1", orderId)).thenReturn(Optional.of(other));
+
+        setAuth("user@example.com");
+        assertThatThrownBy(() -> service.submit(new PaymentRequest(orderId, Money.of(new BigDecimal("10.00"))), "key-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Idempotency-Key already used for another order");
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void submit_doesNotReturnAnotherAccountsPaymentForTheOrder() {
+        var theirs = new Payment();
+        var orderId = UUID.randomUUID();
+        theirs.setId(UUID.randomUUID());
+        theirs.setOrderId(orderId);
+        theirs.setAccountEmail("other@example.com");
+        when(repo.findFirstByAccountEmailAndIdempotencyKeyOrOrderId("user@example.com", "key-1", orderId))
+                .thenReturn(Optional.of(theirs));
+
+        setAuth("user@example.com");
+        assertThatThrownBy(() -> service.submit(new PaymentRequest(orderId, Money.of(new BigDecimal("10.00"))), "key-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Order already paid");
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void idempotencyKey_defaultsToTheOrder_andIsBounded() {
+        var orderId = UUID.randomUUID();
+        assertThat(PaymentService.idempotencyKey(null, orderId)).isEqualTo("order-" + orderId);
+        assertThat(PaymentService.idempotencyKey("k-42", orderId)).isEqualTo("k-42");
+        assertThatThrownBy(() -> PaymentService.idempotencyKey(" ", orderId)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> PaymentService.idempotencyKey("x".repeat(129), orderId)).isInstanceOf(IllegalStateException.class);
+    }
+
     @Test
     void submit_throws_whenUnauthenticated() {
         var orderId = UUID.randomUUID();
-        assertThatThrownBy(() -> service.submit(new PaymentRequest(orderId, new BigDecimal("5.00"))))
+        assertThatThrownBy(() -> service.submit(new PaymentRequest(orderId, Money.of(new BigDecimal("5.00"))), "key-1"))
                 .isInstanceOf(IllegalStateException.class);
     }
 
@@ -73,9 +120,9 @@ class PaymentServiceTest {
         var dto = new OrderGateway.OrderDto();
         dto.id = orderId;
         dto.status = "CREATED";
-        dto.totalAmount = new BigDecimal("10.00");
+        dto.totalAmount = Money.of(new BigDecimal("10.00"));
         when(orders.get(orderId)).thenReturn(dto);
-        when(repo.findByOrderId(orderId)).thenReturn(Optional.empty());
+        when(repo.findFirstByAccountEmailAndIdempotencyKeyOrOrderId("user@example.com", "key-1", orderId)).thenReturn(Optional.empty());
 
         when(repo.save(any(Payment.class))).thenAnswer(inv -> {
             Payment p = inv.getArgument(0);
@@ -87,7 +134,7 @@ class PaymentServiceTest {
 
         setAuth("user@example.com");
         ArgumentCaptor<Payment> captor = ArgumentCaptor.forClass(Payment.class);
-        PaymentResponse resp = service.submit(new PaymentRequest(orderId, new BigDecimal("9.99")));
+        PaymentResponse resp = service.submit(new PaymentRequest(orderId, Money.of(new BigDecimal("9.99"))), "key-1");
         verify(repo).save(captor.capture());
         assertThat(captor.getValue().getStatus()).isEqualTo("FAILED");
         assertThat(resp.status()).isEqualTo("FAILED");
@@ -95,14 +142,14 @@ class PaymentServiceTest {
     }
 
     @Test
-    void submit_success_publishesEvent() {
+    void submit_success_publishesEvent_whenAmountsDifferOnlyInScale() {
         var orderId = UUID.randomUUID();
         var dto = new OrderGateway.OrderDto();
         dto.id = orderId;
         dto.status = "CREATED";
-        dto.totalAmount = new BigDecimal("15.50");
+        dto.totalAmount = Money.of(new BigDecimal("15.5"));
         when(orders.get(orderId)).thenReturn(dto);
-        when(repo.findByOrderId(orderId)).thenReturn(Optional.empty());
+        when(repo.findFirstByAccountEmailAndIdempotencyKeyOrOrderId("user@example.com", "key-1", orderId)).thenReturn(Optional.empty());
         when(repo.save(any(Payment.class))).thenAnswer(inv -> {
             Payment p = inv.getArgument(0);
             p.setId(UUID.randomUUID());
@@ -112,9 +159,79 @@ class PaymentServiceTest {
         });
 
         setAuth("user@example.com");
-        var res = service.submit(new PaymentRequest(orderId, new BigDecimal("15.50")));
+        var saved = ArgumentCaptor.forClass(Payment.class);
+        var res = service.submit(new PaymentRequest(orderId, Money.of(new BigDecimal("15.50"))), "key-1");
         assertThat(res.status()).isEqualTo("SUCCESS");
-        verify(events).publishSucceeded(eq(orderId), any(UUID.class), eq(new BigDecimal("15.50")));
+        verify(repo).save(saved.capture());
+        assertThat(saved.getValue().getIdempotencyKey()).isEqualTo("key-1");
+        verify(events).publishSucceeded(eq(orderId), any(UUID.class), eq(Money.of(new BigDecimal("15.50"))));
+    }
+
+    @Test
+    void submit_rejectsFromTheProjection_onceTheOrderLeftCreated() {
+        var orderId = UUID.randomUUID();
+        when(projections.findById(orderId)).thenReturn(Optional.of(projection(orderId, "CANCELED", "15.50")));
+
+        setAuth("user@example.com");
+        assertThatThrownBy(() -> service.submit(new PaymentRequest(orderId, Money.of(new BigDecimal("15.50"))), "key-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("CREATED");
+        verifyNoInteractions(orders);
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void submit_acceptsFromTheProjection_whenCreatedWithAMatchingTotal() {
+        var orderId = UUID.randomUUID();
+        when(projections.findById(orderId)).thenReturn(Optional.of(projection(orderId, "CREATED", "15.50")));
+        when(repo.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        setAuth("user@example.com");
+        var res = service.submit(new PaymentRequest(orderId, Money.of(new BigDecimal("15.50"))), "key-1");
+
+        assertThat(res.status()).isEqualTo("SUCCESS");
+        verifyNoInteractions(orders);
+        verify(events).publishSucceeded(eq(orderId), any(UUID.class), eq(Money.of(new BigDecimal("15.50"))));
+    }
+
+    @Test
+    void submit_fallsBackToOrderService_whenTheProjectionDisagrees() {
+        var orderId = UUID.randomUUID();
+        // an OrderUpdated that has not been consumed yet
+        when(projections.findById(orderId)).thenReturn(Optional.of(projection(orderId, "CREATED", "10.00")));
+        var dto = new OrderGateway.OrderDto();
+        dto.id = orderId;
+        dto.status = "CREATED";
+        dto.totalAmount = Money.of(new BigDecimal("12.00"));
+        when(orders.get(orderId)).thenReturn(dto);
+        when(repo.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        setAuth("user@example.com");
+        var res = service.submit(new PaymentRequest(orderId, Money.of(new BigDecimal("12.00"))), "key-1");
+
+        assertThat(res.status()).isEqualTo("SUCCESS");
+        verify(orders).get(orderId);
+    }
+
+    private static OrderProjection projection(UUID orderId, String status, String total) {
+        var row = new OrderProjection();
+        row.setOrderId(orderId);
+        row.setStatus(status);
+        row.setTotalAmount(Money.of(new BigDecimal(total)));
+        row.setOrderUpdatedAt(Instant.now());
+        return row;
+    }
+
+    @Test
+    void submit_rejectsNonPositiveAmount() {
+        var orderId = UUID.randomUUID();
+        when(repo.findFirstByAccountEmailAndIdempotencyKeyOrOrderId("user@example.com", "key-1", orderId)).thenReturn(Optional.empty());
+
+        setAuth("user@example.com");
+        assertThatThrownBy(() -> service.submit(new PaymentRequest(orderId, Money.of(BigDecimal.ZERO)), "key-1"))
+                .isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(orders);
+        verify(repo, never()).save(any());
     }
 
     @Test
@@ -127,10 +244,10 @@ class PaymentServiceTest {
         when(repo.findById(pid)).thenReturn(Optional.of(p));
         when(repo.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        var r1 = service.refund(pid, new RefundRequest(new BigDecimal("1.00")));
+        var r1 = service.refund(pid, new RefundRequest(Money.of(new BigDecimal("1.00"))));
         assertThat(r1.status()).isEqualTo("REFUNDED");
 
-        var r2 = service.refund(pid, new RefundRequest(new BigDecimal("1.00")));
+        var r2 = service.refund(pid, new RefundRequest(Money.of(new BigDecimal("1.00"))));
         assertThat(r2.status()).isEqualTo("REFUNDED");
         verify(repo, times(1)).save(any(Payment.class));
     }
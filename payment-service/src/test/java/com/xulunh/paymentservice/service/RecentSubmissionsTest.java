@@ -0,0 +1,102 @@
+package com.xulunh.paymentservice.service;
+
+import com.xulunh.paymentservice.domain.Money;
+import com.xulunh.paymentservice.dto.PaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecentSubmissionsTest {
+
+    private final RecentSubmissions submissions = new RecentSubmissions(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+    private final UUID orderId = UUID.randomUUID();
+
+    private PaymentResponse payment() {
+        return new PaymentResponse(UUID.randomUUID(), orderId, "SUCCESS", Money.of(new BigDecimal("9.99")),
+                "user@example.com", Instant.now(), Instant.now());
+    }
+
+    @Test
+    void retryWithinWindow_isAnsweredFromMemory() {
+        var calls = new AtomicInteger();
+        var first = submissions.submit("user@example.com", "k1", orderId, () -> { calls.incrementAndGet(); return payment(); });
+
+        var retry = submissions.submit("user@example.com", "k1", orderId, () -> { calls.incrementAndGet(); return payment(); });
+
+        assertThat(retry).isSameAs(first);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void keysAreScopedPerAccount() {
+        var calls = new AtomicInteger();
+        submissions.submit("a@example.com", "k1", orderId, () -> { calls.incrementAndGet(); return payment(); });
+        submissions.submit("b@example.com", "k1", orderId, () -> { calls.incrementAndGet(); return payment(); });
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void concurrentRetry_waitsForTheAttemptInFlight() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var calls = new AtomicInteger();
+        var pool = Executors.newFixedThreadPool(2);
+        try {
+            var first = pool.submit(() -> submissions.submit("user@example.com", "k1", orderId, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return payment();
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            var retry = pool.submit(() -> submissions.submit("user@example.com", "k1", orderId, () -> {
+                calls.incrementAndGet();
+                return payment();
+            }));
+            release.countDown();
+
+            assertThat(retry.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+            assertThat(calls).hasValue(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedAttempt_isForgotten() {
+        assertThatThrownBy(() -> submissions.submit("user@example.com", "k1", orderId, () -> {
+            throw new IllegalStateException("Order not found");
+        })).isInstanceOf(IllegalStateException.class);
+
+        var retry = payment();
+        assertThat(submissions.submit("user@example.com", "k1", orderId, () -> retry)).isSameAs(retry);
+    }
+
+    @Test
+    void sameKeyForAnotherOrder_isRejected() {
+        submissions.submit("user@example.com", "k1", orderId, this::payment);
+
+        assertThatThrownBy(() -> submissions.submit("user@example.com", "k1", UUID.randomUUID(), this::payment))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}